@@ -0,0 +1,13 @@
+package org.example.sbp1.catalog;
+
+import lombok.Data;
+
+@Data
+public class CatalogFilter {
+    private String category;
+    private Double minPrice;
+    private Double maxPrice;
+    private boolean inStock;
+    private Integer authorId;
+    private Integer publisherId;
+}
@@ -0,0 +1,403 @@
+package org.example.sbp1.catalog;
+
+import org.example.sbp1.dto.CatalogBookView;
+import org.example.sbp1.model.Book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, column-oriented copy of the books table. Every column is a primitive array indexed by
+ * row (rows sorted by id); categories are dictionary-encoded and author/publisher are kept as ids.
+ * ISBNs use the validated xx-xxx-xxx format, so they are packed into an int (its 8 digits) instead of
+ * a String per row; only rows that predate the validation keep the raw string.
+ * Titles stay plain strings: they are close to unique per book, so interning or a dictionary would
+ * save little and cost a hash lookup per row on every load. Copy-on-write rebuilds copy the
+ * references, never the strings, so a title is only ever held once.
+ * Writers never modify a snapshot, they build a new one and publish it (copy-on-write).
+ */
+public final class CatalogSnapshot {
+
+    static final int NO_CATEGORY = -1;
+    static final int RAW_ISBN = -1;
+
+    private final int size;
+    private final int[] ids;
+    private final String[] titles;
+    private final int[] isbnCodes;
+    // Only allocated when some ISBN does not fit the packed format; null entries elsewhere
+    private final String[] rawIsbns;
+    private final double[] prices;
+    private final int[] quantities;
+    private final int[] categoryCodes;
+    private final String[] categoryDictionary;
+    private final int[] authorIds;
+    private final int[] publisherIds;
+
+    private CatalogSnapshot(Builder builder) {
+        this.size = builder.size;
+        this.ids = Arrays.copyOf(builder.ids, size);
+        this.titles = Arrays.copyOf(builder.titles, size);
+        this.isbnCodes = Arrays.copyOf(builder.isbnCodes, size);
+        this.rawIsbns = builder.rawIsbns != null ? Arrays.copyOf(builder.rawIsbns, size) : null;
+        this.prices = Arrays.copyOf(builder.prices, size);
+        this.quantities = Arrays.copyOf(builder.quantities, size);
+        this.categoryCodes = Arrays.copyOf(builder.categoryCodes, size);
+        this.categoryDictionary = builder.dictionary.toArray(new String[0]);
+        this.authorIds = Arrays.copyOf(builder.authorIds, size);
+        this.publisherIds = Arrays.copyOf(builder.publisherIds, size);
+    }
+
+    public static CatalogSnapshot empty() {
+        return new Builder(0).build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int categoryCount() {
+        return categoryDictionary.length;
+    }
+
+    // -------------------------
+    // Reads
+    // -------------------------
+
+    public int count(CatalogFilter filter) {
+        boolean[] categories = categoryMask(filter);
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            if (matches(row, filter, categories)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public List<CatalogBookView> find(CatalogFilter filter, int offset, int limit) {
+        boolean[] categories = categoryMask(filter);
+        List<CatalogBookView> result = new ArrayList<>(Math.min(limit, 256));
+        int skipped = 0;
+        for (int row = 0; row < size && result.size() < limit; row++) {
+            if (matches(row, filter, categories)) {
+                if (skipped++ >= offset) {
+                    result.add(view(row));
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Same result as {@code BookRepository.countByCategory}. */
+    public int countByCategory(String category) {
+        CatalogFilter filter = new CatalogFilter();
+        filter.setCategory(category);
+        return count(filter);
+    }
+
+    private boolean matches(int row, CatalogFilter filter, boolean[] categories) {
+        if (categories != null) {
+            int code = categoryCodes[row];
+            if (code == NO_CATEGORY || !categories[code]) {
+                return false;
+            }
+        }
+        if (filter.getMinPrice() != null && prices[row] < filter.getMinPrice()) {
+            return false;
+        }
+        if (filter.getMaxPrice() != null && prices[row] > filter.getMaxPrice()) {
+            return false;
+        }
+        if (filter.isInStock() && quantities[row] <= 0) {
+            return false;
+        }
+        if (filter.getAuthorId() != null && authorIds[row] != filter.getAuthorId()) {
+            return false;
+        }
+        return filter.getPublisherId() == null || publisherIds[row] == filter.getPublisherId();
+    }
+
+    // Dictionary codes matching the category filter, compared case-insensitively like the
+    // column's MySQL collation; null when the filter has no category
+    private boolean[] categoryMask(CatalogFilter filter) {
+        if (filter.getCategory() == null) {
+            return null;
+        }
+        boolean[] mask = new boolean[categoryDictionary.length];
+        for (int code = 0; code < categoryDictionary.length; code++) {
+            mask[code] = categoryDictionary[code].equalsIgnoreCase(filter.getCategory());
+        }
+        return mask;
+    }
+
+    private CatalogBookView view(int row) {
+        int code = categoryCodes[row];
+        return new CatalogBookView(ids[row], titles[row], isbn(row), prices[row], quantities[row],
+                code == NO_CATEGORY ? null : categoryDictionary[code], authorIds[row], publisherIds[row]);
+    }
+
+    // -------------------------
+    // Copy-on-write updates
+    // -------------------------
+
+    /** Returns a new snapshot with the given books inserted or replaced (matched by id). */
+    public CatalogSnapshot withBooks(Collection<Book> books) {
+        Map<Integer, Book> changed = new HashMap<>(books.size() * 2);
+        for (Book book : books) {
+            changed.put(book.getId(), book);
+        }
+        Builder replaced = new Builder(size);
+        for (int row = 0; row < size; row++) {
+            Book book = changed.remove(ids[row]);
+            if (book == null) {
+                copyRow(replaced, row);
+            } else {
+                replaced.add(book);
+            }
+        }
+        if (changed.isEmpty()) {
+            return replaced.build();
+        }
+
+        // Merge the new books in by id so rows stay sorted
+        List<Book> inserted = new ArrayList<>(changed.values());
+        inserted.sort(Comparator.comparingInt(Book::getId));
+        Builder merged = new Builder(replaced.size + inserted.size());
+        int row = 0;
+        for (Book book : inserted) {
+            while (row < replaced.size && replaced.ids[row] < book.getId()) {
+                merged.copyFrom(replaced, row++);
+            }
+            merged.add(book);
+        }
+        while (row < replaced.size) {
+            merged.copyFrom(replaced, row++);
+        }
+        return merged.build();
+    }
+
+    /** Returns a new snapshot with the price of each listed book id replaced (unknown ids are ignored). */
+    public CatalogSnapshot withPrices(Map<Integer, Double> pricesById) {
+        Builder builder = new Builder(size);
+        for (int row = 0; row < size; row++) {
+            copyRow(builder, row);
+            Double price = pricesById.get(ids[row]);
+            if (price != null) {
+                builder.prices[row] = price;
+            }
+        }
+        return builder.build();
+    }
+
+    /** Returns a new snapshot without the book with this ISBN (or this snapshot if absent). */
+    public CatalogSnapshot withoutIsbn(String isbn) {
+        int code = encodeIsbn(isbn);
+        int removed = -1;
+        for (int row = 0; row < size; row++) {
+            if (code != RAW_ISBN ? isbnCodes[row] == code : isbnCodes[row] == RAW_ISBN && rawIsbns[row].equals(isbn)) {
+                removed = row;
+                break;
+            }
+        }
+        if (removed < 0) {
+            return this;
+        }
+        Builder builder = new Builder(size - 1);
+        for (int row = 0; row < size; row++) {
+            if (row != removed) {
+                copyRow(builder, row);
+            }
+        }
+        return builder.build();
+    }
+
+    private void copyRow(Builder builder, int row) {
+        int code = categoryCodes[row];
+        builder.add(ids[row], titles[row], isbnCodes[row], rawIsbns != null ? rawIsbns[row] : null, prices[row],
+                quantities[row], code == NO_CATEGORY ? null : categoryDictionary[code], authorIds[row], publisherIds[row]);
+    }
+
+    private String isbn(int row) {
+        int code = isbnCodes[row];
+        return code == RAW_ISBN ? rawIsbns[row] : decodeIsbn(code);
+    }
+
+    /** Packs "12-345-678" into 12345678; {@link #RAW_ISBN} for anything else. */
+    static int encodeIsbn(String isbn) {
+        if (isbn == null || isbn.length() != 10 || isbn.charAt(2) != '-' || isbn.charAt(6) != '-') {
+            return RAW_ISBN;
+        }
+        int code = 0;
+        for (int i = 0; i < 10; i++) {
+            if (i == 2 || i == 6) {
+                continue;
+            }
+            char c = isbn.charAt(i);
+            if (c < '0' || c > '9') {
+                return RAW_ISBN;
+            }
+            code = code * 10 + (c - '0');
+        }
+        return code;
+    }
+
+    static String decodeIsbn(int code) {
+        char[] chars = new char[10];
+        for (int i = 9; i >= 0; i--) {
+            if (i == 2 || i == 6) {
+                chars[i] = '-';
+            } else {
+                chars[i] = (char) ('0' + code % 10);
+                code /= 10;
+            }
+        }
+        return new String(chars);
+    }
+
+    /** Approximate retained heap of this snapshot, assuming compressed oops and compact strings. */
+    public long estimatedHeapBytes() {
+        long bytes = 0;
+        bytes += arrayBytes(size, 4) * 6;  // ids, isbnCodes, quantities, categoryCodes, authorIds, publisherIds
+        bytes += arrayBytes(size, 8);      // prices
+        bytes += arrayBytes(size, 4);      // title references
+        for (int row = 0; row < size; row++) {
+            bytes += stringBytes(titles[row]);
+        }
+        if (rawIsbns != null) {
+            bytes += arrayBytes(size, 4);
+            for (String isbn : rawIsbns) {
+                bytes += stringBytes(isbn);
+            }
+        }
+        for (String category : categoryDictionary) {
+            bytes += stringBytes(category);
+        }
+        return bytes;
+    }
+
+    private static long arrayBytes(int length, int elementSize) {
+        return align(16L + (long) length * elementSize);
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : 24 + arrayBytes(value.length(), 1);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    // -------------------------
+    // Builder
+    // -------------------------
+
+    public static final class Builder {
+        private int size;
+        private int[] ids;
+        private String[] titles;
+        private int[] isbnCodes;
+        private String[] rawIsbns;
+        private double[] prices;
+        private int[] quantities;
+        private int[] categoryCodes;
+        private int[] authorIds;
+        private int[] publisherIds;
+        private final Map<String, Integer> categoryIndex = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+
+        public Builder(int expectedSize) {
+            int capacity = Math.max(16, expectedSize);
+            ids = new int[capacity];
+            titles = new String[capacity];
+            isbnCodes = new int[capacity];
+            prices = new double[capacity];
+            quantities = new int[capacity];
+            categoryCodes = new int[capacity];
+            authorIds = new int[capacity];
+            publisherIds = new int[capacity];
+        }
+
+        public Builder add(Book book) {
+            return add(book.getId(), book.getTitle(), book.getIsbn(), book.getPrice(), book.getQuantity(),
+                    book.getCategory(),
+                    book.getAuthor() != null ? book.getAuthor().getId() : 0,
+                    book.getPublisher() != null ? book.getPublisher().getId() : 0);
+        }
+
+        public Builder add(int id, String title, String isbn, double price, int quantity, String category,
+                           int authorId, int publisherId) {
+            return add(id, title, encodeIsbn(isbn), isbn, price, quantity, category, authorId, publisherId);
+        }
+
+        // Copies pass the packed code through, so rebuilding a snapshot allocates no ISBN strings
+        private Builder add(int id, String title, int isbnCode, String rawIsbn, double price, int quantity,
+                            String category, int authorId, int publisherId) {
+            ensureCapacity(size + 1);
+            ids[size] = id;
+            titles[size] = title;
+            isbnCodes[size] = isbnCode;
+            if (isbnCode == RAW_ISBN) {
+                if (rawIsbns == null) {
+                    rawIsbns = new String[ids.length];
+                }
+                rawIsbns[size] = rawIsbn;
+            }
+            prices[size] = price;
+            quantities[size] = quantity;
+            categoryCodes[size] = encode(category);
+            authorIds[size] = authorId;
+            publisherIds[size] = publisherId;
+            size++;
+            return this;
+        }
+
+        private void copyFrom(Builder other, int row) {
+            int code = other.categoryCodes[row];
+            add(other.ids[row], other.titles[row], other.isbnCodes[row], other.rawIsbns != null ? other.rawIsbns[row] : null,
+                    other.prices[row], other.quantities[row],
+                    code == NO_CATEGORY ? null : other.dictionary.get(code), other.authorIds[row], other.publisherIds[row]);
+        }
+
+        public CatalogSnapshot build() {
+            return new CatalogSnapshot(this);
+        }
+
+        private int encode(String category) {
+            if (category == null) {
+                return NO_CATEGORY;
+            }
+            Integer code = categoryIndex.get(category);
+            if (code == null) {
+                code = dictionary.size();
+                // Every row of a category shares the dictionary's String instance
+                categoryIndex.put(category, code);
+                dictionary.add(category);
+            }
+            return code;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= ids.length) {
+                return;
+            }
+            int grown = Math.max(capacity, ids.length + (ids.length >> 1));
+            ids = Arrays.copyOf(ids, grown);
+            titles = Arrays.copyOf(titles, grown);
+            isbnCodes = Arrays.copyOf(isbnCodes, grown);
+            if (rawIsbns != null) {
+                rawIsbns = Arrays.copyOf(rawIsbns, grown);
+            }
+            prices = Arrays.copyOf(prices, grown);
+            quantities = Arrays.copyOf(quantities, grown);
+            categoryCodes = Arrays.copyOf(categoryCodes, grown);
+            authorIds = Arrays.copyOf(authorIds, grown);
+            publisherIds = Arrays.copyOf(publisherIds, grown);
+        }
+    }
+}
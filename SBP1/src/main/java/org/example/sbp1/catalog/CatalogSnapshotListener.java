@@ -0,0 +1,43 @@
+package org.example.sbp1.catalog;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.sbp1.model.Book;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+/**
+ * Removes deleted books from the snapshot whatever the delete path, including books removed by
+ * cascade when their author or publisher is deleted. Registered with Hibernate's event registry
+ * from here, so the {@link Book} entity does not need to know about the catalog.
+ */
+@Component
+public class CatalogSnapshotListener implements PostDeleteEventListener {
+
+    private final CatalogSnapshotService catalogSnapshotService;
+
+    public CatalogSnapshotListener(EntityManagerFactory entityManagerFactory,
+                                   CatalogSnapshotService catalogSnapshotService) {
+        this.catalogSnapshotService = catalogSnapshotService;
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Book book) {
+            catalogSnapshotService.bookDeleted(book.getIsbn());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        // bookDeleted already defers the snapshot change to after the commit
+        return false;
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.sbp1.catalog;
+
+import org.example.sbp1.exception.CatalogUnavailableException;
+import org.example.sbp1.model.Book;
+import org.example.sbp1.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Holds the current {@link CatalogSnapshot}. Built from the database once the application is ready,
+ * then kept in sync by {@code BookService} after each committed write and by
+ * {@link CatalogSnapshotListener} for deletes (including cascades). Readers just grab the
+ * volatile reference, so listings and counts never touch Hibernate.
+ */
+@Service
+public class CatalogSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+    private final BookRepository bookRepository;
+    private final boolean enabled;
+    private final Object writeLock = new Object();
+    private volatile CatalogSnapshot snapshot;
+
+    public CatalogSnapshotService(BookRepository bookRepository,
+                                  @Value("${library.catalog.snapshot.enabled:false}") boolean enabled) {
+        this.bookRepository = bookRepository;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        // Writes that commit while loading wait on the lock and are applied on top of the result
+        synchronized (writeLock) {
+            long start = System.nanoTime();
+            CatalogSnapshot.Builder builder = new CatalogSnapshot.Builder((int) bookRepository.count());
+            try (Stream<Object[]> rows = bookRepository.streamCatalogRows()) {
+                rows.forEach(row -> builder.add((Integer) row[0], (String) row[1], (String) row[2],
+                        (Double) row[3], (Integer) row[4], (String) row[5], (Integer) row[6], (Integer) row[7]));
+            }
+            snapshot = builder.build();
+            log.info("Catalog snapshot loaded: {} books, ~{} KB heap, {} ms", snapshot.size(),
+                    snapshot.estimatedHeapBytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** True once the snapshot is enabled and loaded; callers fall back to the database otherwise. */
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    public CatalogSnapshot current() {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            throw new CatalogUnavailableException(enabled);
+        }
+        return current;
+    }
+
+    public void booksSaved(Collection<Book> books) {
+        if (enabled && !books.isEmpty()) {
+            afterCommit(() -> publish(current -> current.withBooks(books)));
+        }
+    }
+
+    public void pricesChanged(Map<Integer, Double> pricesById) {
+        if (enabled && !pricesById.isEmpty()) {
+            afterCommit(() -> publish(current -> current.withPrices(pricesById)));
+        }
+    }
+
+    public void bookDeleted(String isbn) {
+        if (enabled) {
+            afterCommit(() -> publish(current -> current.withoutIsbn(isbn)));
+        }
+    }
+
+    private void publish(UnaryOperator<CatalogSnapshot> change) {
+        synchronized (writeLock) {
+            if (snapshot != null) {
+                snapshot = change.apply(snapshot);
+            }
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
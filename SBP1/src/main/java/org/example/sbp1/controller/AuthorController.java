@@ -3,6 +3,7 @@ package org.example.sbp1.controller;
 import lombok.RequiredArgsConstructor;
 import org.example.sbp1.dto.CreateAuthorRequest;
 import org.example.sbp1.model.Author;
+import org.example.sbp1.ratelimit.RateLimited;
 import org.example.sbp1.repository.AuthorRepository;
 import org.example.sbp1.service.AuthorService;
 import org.springframework.http.MediaType;
@@ -25,6 +26,7 @@ public class AuthorController {
     }
 
     @GetMapping
+    @RateLimited("scan")
     public List<Author> getAllAuthors() {
         return authorService.getAllAuthors();
     }
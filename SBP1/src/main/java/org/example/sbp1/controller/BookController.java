@@ -1,11 +1,20 @@
 package org.example.sbp1.controller;
 
+import org.example.sbp1.catalog.CatalogFilter;
+import org.example.sbp1.dto.BookAsOfPage;
+import org.example.sbp1.dto.BookQueryRequest;
+import org.example.sbp1.dto.BookQueryResponse;
+import org.example.sbp1.dto.CatalogBookView;
 import org.example.sbp1.dto.CreateBookRequest;
+import org.example.sbp1.dto.PriceRunResponse;
 import org.example.sbp1.model.Book;
+import org.example.sbp1.model.BookPriceHistory;
+import org.example.sbp1.ratelimit.RateLimited;
 import org.example.sbp1.service.BookService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
 import java.util.List;
 
 @RestController
@@ -23,6 +32,7 @@ BookController {
     
     // --- Get all books (REST standard endpoint) ---
     @GetMapping
+    @RateLimited("scan")
     public List<Book> getAllBooks() {
         return bookService.displayAllBooks();
     }
@@ -35,8 +45,9 @@ BookController {
     } */
     // ---or ---
     @PostMapping("/createBook")
-    public Book createBook(@RequestBody CreateBookRequest request) {
-        return bookService.createBook(request);
+    public Book createBook(@RequestBody CreateBookRequest request,
+                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return bookService.createBook(request, idempotencyKey);
     }
 
     // --- Get the number of books in a category ---
@@ -47,8 +58,33 @@ BookController {
 
     // --- Update all book prices by 10% ---
     @PutMapping("/updateBook")
-    public void updatePrices() {
-        bookService.update();
+    @RateLimited("bulk")
+    public PriceRunResponse updatePrices() {
+        return bookService.update();
+    }
+
+    // --- Roll back a repricing run ---
+    @PostMapping("/history/runs/{runId}/rollback")
+    @RateLimited("bulk")
+    public PriceRunResponse rollbackRun(@PathVariable String runId) {
+        return bookService.rollbackRun(runId);
+    }
+
+    // --- Price/quantity history of a book ---
+    @GetMapping("/history/{isbn}")
+    public List<BookPriceHistory> priceHistory(@PathVariable String isbn) {
+        return bookService.priceHistory(isbn);
+    }
+
+    // --- Catalog prices and quantities as of a timestamp (ISO-8601, e.g. 2026-01-31T00:00:00Z) ---
+    // Paged by book id: pass nextAfterId from the previous page as afterId, or filter on one ISBN
+    @GetMapping("/asOf")
+    @RateLimited("scan")
+    public BookAsOfPage catalogAsOf(@RequestParam Instant timestamp,
+                                    @RequestParam(required = false) String isbn,
+                                    @RequestParam(defaultValue = "0") int afterId,
+                                    @RequestParam(defaultValue = "100") int size) {
+        return bookService.catalogAsOf(timestamp, isbn, afterId, size);
     }
 
     // --- Delete a book by ISBN ---
@@ -58,18 +94,21 @@ BookController {
     }
     // --- Display All Books ---
     @GetMapping("/displayAllBooks")
+    @RateLimited("scan")
     public List<Book> displayBooks() {
         return bookService.displayAllBooks();
     }
 
     // --- Search books by title ---
     @GetMapping("/search/title")
+    @RateLimited("scan")
     public List<Book> searchByTitle(@RequestParam String title) {
         return bookService.searchByTitle(title);
     }
 
     // --- Search books by author name ---
     @GetMapping("/search/author")
+    @RateLimited("scan")
     public List<Book> searchByAuthor(@RequestParam String authorName) {
         return bookService.searchByAuthor(authorName);
     }
@@ -82,8 +121,30 @@ BookController {
 
     // --- Search books by category ---
     @GetMapping("/search/category")
+    @RateLimited("scan")
     public List<Book> searchByCategory(@RequestParam String category) {
         return bookService.searchByCategory(category);
     }
 
+    // --- Filter, sort and page books in one query ---
+    @GetMapping("/query")
+    @RateLimited("scan")
+    public BookQueryResponse query(BookQueryRequest request) {
+        return bookService.query(request);
+    }
+
+    // --- List books from the in-memory catalog snapshot ---
+    @GetMapping("/catalog")
+    public List<CatalogBookView> catalogBooks(CatalogFilter filter,
+                                              @RequestParam(defaultValue = "0") int offset,
+                                              @RequestParam(defaultValue = "50") int limit) {
+        return bookService.catalogBooks(filter, Math.max(0, offset), Math.max(0, Math.min(limit, 1000)));
+    }
+
+    // --- Count books from the in-memory catalog snapshot ---
+    @GetMapping("/catalog/count")
+    public int catalogCount(CatalogFilter filter) {
+        return bookService.catalogCount(filter);
+    }
+
 }
@@ -3,6 +3,7 @@ package org.example.sbp1.controller;
 import lombok.RequiredArgsConstructor;
 import org.example.sbp1.dto.CreatePublisherRequest;
 import org.example.sbp1.model.Publisher;
+import org.example.sbp1.ratelimit.RateLimited;
 import org.example.sbp1.service.PublisherService;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
@@ -22,6 +23,7 @@ public class PublisherController {
     }
 
     @GetMapping
+    @RateLimited("scan")
     public List<Publisher> getAllPublishers() {
         return publisherService.getAllPublishers();
     }
@@ -0,0 +1,15 @@
+package org.example.sbp1.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BookAsOfPage {
+    private List<BookAsOfView> content;
+    private boolean hasNext;
+    // Pass as afterId to get the next page; null on the last page
+    private Integer nextAfterId;
+}
@@ -0,0 +1,13 @@
+package org.example.sbp1.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BookAsOfView {
+    private int bookId;
+    private String isbn;
+    private double price;
+    private int quantity;
+}
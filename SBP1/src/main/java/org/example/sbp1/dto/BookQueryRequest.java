@@ -0,0 +1,25 @@
+package org.example.sbp1.dto;
+
+import lombok.Data;
+
+@Data
+public class BookQueryRequest {
+    // Filters (all optional, combined with AND)
+    private String title;
+    private String authorName;
+    private Integer authorId;
+    private Integer publisherId;
+    private String category;
+    private Double minPrice;
+    private Double maxPrice;
+    private Boolean inStock;
+    private String tag;
+
+    // Comma-separated sort keys, "-" prefix for descending, e.g. "-price,title"
+    private String sort;
+    private int page = 0;
+    private int size = 20;
+
+    // Run an exact COUNT(*) instead of returning an estimate
+    private boolean exactCount;
+}
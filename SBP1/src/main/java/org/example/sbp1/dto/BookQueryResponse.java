@@ -0,0 +1,19 @@
+package org.example.sbp1.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.example.sbp1.model.Book;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BookQueryResponse {
+    private List<Book> content;
+    private int page;
+    private int size;
+    private boolean hasNext;
+    // Exact when totalExact is true, otherwise an estimate (or a lower bound for filtered queries)
+    private long totalElements;
+    private boolean totalExact;
+}
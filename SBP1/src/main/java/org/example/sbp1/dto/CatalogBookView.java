@@ -0,0 +1,17 @@
+package org.example.sbp1.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CatalogBookView {
+    private int id;
+    private String title;
+    private String isbn;
+    private double price;
+    private int quantity;
+    private String category;
+    private int authorId;
+    private int publisherId;
+}
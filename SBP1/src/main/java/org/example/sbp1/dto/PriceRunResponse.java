@@ -0,0 +1,13 @@
+package org.example.sbp1.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class PriceRunResponse {
+    private String runId;
+    private int booksUpdated;
+    // Rollbacks only: books whose price changed again after the run and were left alone
+    private int booksSkipped;
+}
@@ -0,0 +1,17 @@
+package org.example.sbp1.exception;
+
+public class CatalogUnavailableException extends RuntimeException {
+
+    private final boolean loading;
+
+    public CatalogUnavailableException(boolean loading) {
+        super(loading
+                ? "Catalog snapshot is still loading"
+                : "Catalog snapshot is disabled (library.catalog.snapshot.enabled=false)");
+        this.loading = loading;
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.sbp1.exception;
+
+public class DuplicateIsbnException extends RuntimeException {
+    public DuplicateIsbnException(String isbn) {
+        super("Book with ISBN already exists: " + isbn);
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.sbp1.exception;
+
+public class IdempotencyKeyReuseException extends RuntimeException {
+    public IdempotencyKeyReuseException(String key) {
+        super("Idempotency-Key was already used with a different request: " + key);
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.sbp1.exception;
+
+public class IdempotentResultGoneException extends RuntimeException {
+    public IdempotentResultGoneException(String key) {
+        super("Book created for Idempotency-Key " + key + " has since been deleted");
+    }
+}
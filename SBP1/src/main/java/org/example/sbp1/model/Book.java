@@ -12,7 +12,11 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = {
+        @Index(name = "idx_books_title", columnList = "title"),
+        @Index(name = "idx_books_price", columnList = "price"),
+        @Index(name = "idx_books_category", columnList = "category")
+})
 @ToString(exclude = "author")
 
 @Getter
@@ -0,0 +1,30 @@
+package org.example.sbp1.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Copy of every book's price and quantity at {@code checkpointAt}, written in bulk by
+ * {@code PriceHistoryService}. As-of queries start from the first checkpoint after their timestamp
+ * and undo only the history in between, instead of all history up to now.
+ */
+@Entity
+@Table(name = "book_price_checkpoint", indexes = {
+        @Index(name = "idx_price_checkpoint_book", columnList = "checkpoint_at, book_id"),
+        @Index(name = "idx_price_checkpoint_isbn", columnList = "checkpoint_at, isbn")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class BookPriceCheckpoint {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY) private long id;
+    @Column(name = "checkpoint_at", nullable = false) private Instant checkpointAt;
+    @Column(name = "book_id", nullable = false) private int bookId;
+    @Column(nullable = false) private String isbn;
+    @Column(nullable = false) private double price;
+    @Column(nullable = false) private int quantity;
+}
@@ -0,0 +1,40 @@
+package org.example.sbp1.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Append-only record of a book's price/quantity change. Rows are only ever inserted (in JDBC
+ * batches by {@code PriceHistoryService}); {@code price}/{@code quantity} hold the values after
+ * the change, {@code previousPrice}/{@code previousQuantity} the values before it.
+ */
+@Entity
+@Table(name = "book_price_history", indexes = {
+        @Index(name = "idx_price_history_isbn_time", columnList = "isbn, changed_at"),
+        @Index(name = "idx_price_history_time", columnList = "changed_at"),
+        @Index(name = "idx_price_history_book_time", columnList = "book_id, changed_at"),
+        @Index(name = "idx_price_history_run", columnList = "run_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class BookPriceHistory {
+
+    public enum ChangeType { CREATE, REPRICE, ROLLBACK, DELETE }
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY) private long id;
+    @Column(name = "book_id", nullable = false) private int bookId;
+    @Column(nullable = false) private String isbn;
+    @Enumerated(EnumType.STRING) @Column(name = "change_type", nullable = false, length = 16) private ChangeType changeType;
+    private Double price;
+    private Integer quantity;
+    @Column(name = "previous_price") private Double previousPrice;
+    @Column(name = "previous_quantity") private Integer previousQuantity;
+    // Groups the rows written by one bulk repricing (or rollback) so it can be rolled back
+    @Column(name = "run_id", length = 36) private String runId;
+    @Column(name = "changed_at", nullable = false) private Instant changedAt;
+}
@@ -0,0 +1,23 @@
+package org.example.sbp1.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/** Remembers which book an {@code Idempotency-Key} created, so a retried request gets the same answer. */
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_keys_created", columnList = "created_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class IdempotencyRecord {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY) private long id;
+    @Column(name = "idempotency_key", nullable = false, unique = true, length = 128) private String idempotencyKey;
+    // SHA-256 of the request, to reject a key reused for a different request
+    @Column(name = "request_hash", nullable = false, length = 64) private String requestHash;
+    @Column(name = "book_id", nullable = false) private int bookId;
+    @Column(name = "created_at", nullable = false) private Instant createdAt;
+}
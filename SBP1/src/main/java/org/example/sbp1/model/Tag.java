@@ -20,7 +20,7 @@ import java.util.Set;
 public class Tag {
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)private int id;
 
-    @Column(nullable = false)@NotBlank(message = "Name cannot be blank")private String name;
+    @Column(nullable = false, unique = true)@NotBlank(message = "Name cannot be blank")private String name;
 
     @ManyToMany(mappedBy = "tags") @JsonIgnore@JsonBackReference
     private Set<Book> books = new HashSet<>();
@@ -0,0 +1,92 @@
+package org.example.sbp1.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limiter whose limit follows the latency gradient (same idea as Netflix's Gradient2):
+ * a long-term average RTT is compared with each new sample; when requests start queueing (sample
+ * RTT above the average) the limit shrinks, otherwise it grows by roughly sqrt(limit).
+ * Requests over the limit are rejected immediately instead of waiting for a pooled connection.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double LONG_WINDOW_FACTOR = 0.05;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double tolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+    private volatile double longRtt;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double smoothing, double tolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.tolerance = tolerance;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /** Releases a permit taken by {@link #tryAcquire()} and feeds the observed latency back into the limit. */
+    public void release(long rttNanos) {
+        int inFlightAtCompletion = inFlight.getAndDecrement();
+        onSample(rttNanos, inFlightAtCompletion);
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtCompletion) {
+        double rtt = Math.max(1, rttNanos);
+        if (longRtt == 0) {
+            longRtt = rtt;
+        } else {
+            longRtt = longRtt * (1 - LONG_WINDOW_FACTOR) + rtt * LONG_WINDOW_FACTOR;
+        }
+        // After a latency spike the average lags behind; pull it back down so the limit can recover.
+        if (longRtt / rtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        double current = limit;
+        // Application-limited: not enough traffic to tell whether a higher limit would hurt.
+        if (inFlightAtCompletion < current / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / rtt));
+        double queueSize = Math.sqrt(current);
+        double newLimit = current * gradient + queueSize;
+        newLimit = current * (1 - smoothing) + newLimit * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    /**
+     * Rough time until a rejected caller could be admitted: permits free up about every
+     * {@code longRtt / limit}, and the caller would be behind everything currently over the limit.
+     */
+    public long estimatedWaitNanos() {
+        double current = limit;
+        int queued = Math.max(1, inFlight.get() - (int) current + 1);
+        return (long) (longRtt * queued / current);
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,179 @@
+package org.example.sbp1.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Admission control in front of the REST controllers: a per-client and a per-endpoint token bucket
+ * (429 when empty) followed by an adaptive concurrency limit shared by all endpoints (503 when full).
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = RateLimitInterceptor.class.getName() + ".start";
+    private static final String DEFAULT_POLICY = "default";
+
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final Map<String, TokenBucket> endpointBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> clientBuckets = new ConcurrentHashMap<>();
+    // Shared by every client that arrives while the client table is full, one per endpoint
+    private final Map<String, TokenBucket> overflowBuckets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RateLimitInterceptor(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, new AdaptiveConcurrencyLimiter(properties.getConcurrency().getInitialLimit(),
+                properties.getConcurrency().getMinLimit(), properties.getConcurrency().getMaxLimit(),
+                properties.getConcurrency().getSmoothing(), properties.getConcurrency().getRttTolerance()));
+    }
+
+    RateLimitInterceptor(RateLimitProperties properties, MeterRegistry meterRegistry,
+                         AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.concurrencyLimiter = concurrencyLimiter;
+
+        Gauge.builder("library.concurrency.limit", concurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("library.concurrency.inflight", concurrencyLimiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Requests currently admitted by the concurrency limiter")
+                .register(meterRegistry);
+        Gauge.builder("library.ratelimit.tracked.clients", clientBuckets, Map::size)
+                .description("Client token buckets currently tracked")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!properties.isEnabled() || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+
+        String policyName = policyName(handlerMethod);
+        RateLimitProperties.Policy policy = properties.policy(policyName);
+        String endpoint = request.getMethod() + " " + endpointPattern(request);
+
+        TokenBucket clientBucket = clientBucket(clientId(request), endpoint, policy);
+        if (!clientBucket.tryAcquire()) {
+            return reject(response, HttpStatus.TOO_MANY_REQUESTS, "client", policyName, clientBucket.secondsUntilNextToken());
+        }
+        TokenBucket endpointBucket = endpointBuckets.computeIfAbsent(endpoint,
+                key -> new TokenBucket(policy.getEndpointPermitsPerSecond(), policy.getEndpointBurst()));
+        if (!endpointBucket.tryAcquire()) {
+            return reject(response, HttpStatus.TOO_MANY_REQUESTS, "endpoint", policyName, endpointBucket.secondsUntilNextToken());
+        }
+
+        if (properties.getConcurrency().isEnabled()) {
+            if (!concurrencyLimiter.tryAcquire()) {
+                long waitSeconds = (long) Math.ceil(concurrencyLimiter.estimatedWaitNanos() / 1_000_000_000d);
+                return reject(response, HttpStatus.SERVICE_UNAVAILABLE, "concurrency", policyName, waitSeconds);
+            }
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (start != null) {
+            request.removeAttribute(START_ATTRIBUTE);
+            concurrencyLimiter.release(System.nanoTime() - (Long) start);
+        }
+    }
+
+    private boolean reject(HttpServletResponse response, HttpStatus status, String reason, String policy,
+                           long retryAfterSeconds) throws IOException {
+        Counter.builder("library.ratelimit.rejected")
+                .description("Requests shed by admission control")
+                .tag("reason", reason)
+                .tag("policy", policy)
+                .register(meterRegistry)
+                .increment();
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfterSeconds)));
+        response.sendError(status.value(), status == HttpStatus.TOO_MANY_REQUESTS
+                ? "Rate limit exceeded" : "Server busy, retry later");
+        return false;
+    }
+
+    /**
+     * Drops client buckets that have refilled completely: such a client has been idle long enough that
+     * a fresh bucket would behave the same. Runs off the request path so admission stays O(1).
+     */
+    @Scheduled(fixedDelayString = "${library.rate-limit.client-sweep-interval-ms:10000}")
+    public void evictIdleClients() {
+        clientBuckets.values().removeIf(TokenBucket::isFull);
+        overflowBuckets.values().removeIf(TokenBucket::isFull);
+    }
+
+    private TokenBucket clientBucket(String clientId, String endpoint, RateLimitProperties.Policy policy) {
+        String key = clientId + "|" + endpoint;
+        TokenBucket bucket = clientBuckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (clientBuckets.size() >= properties.getMaxTrackedClients()) {
+            // Hard cap: new clients share one bucket per endpoint until the next sweep frees room
+            return overflowBuckets.computeIfAbsent(endpoint,
+                    k -> new TokenBucket(policy.getClientPermitsPerSecond(), policy.getClientBurst()));
+        }
+        return clientBuckets.computeIfAbsent(key,
+                k -> new TokenBucket(policy.getClientPermitsPerSecond(), policy.getClientBurst()));
+    }
+
+    private String policyName(HandlerMethod handlerMethod) {
+        RateLimited rateLimited = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), RateLimited.class);
+        if (rateLimited == null) {
+            rateLimited = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), RateLimited.class);
+        }
+        return rateLimited != null ? rateLimited.value() : DEFAULT_POLICY;
+    }
+
+    private String endpointPattern(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : request.getRequestURI();
+    }
+
+    /**
+     * Each proxy appends the address it received the request from, so only the right-most
+     * {@code trustedProxyHops} entries are trustworthy; the left part is whatever the client sent.
+     */
+    private String clientId(HttpServletRequest request) {
+        int hops = properties.getTrustedProxyHops();
+        if (hops > 0) {
+            List<String> forwardedFor = new ArrayList<>();
+            for (String header : Collections.list(request.getHeaders("X-Forwarded-For"))) {
+                for (String hop : header.split(",")) {
+                    if (!hop.isBlank()) {
+                        forwardedFor.add(hop.trim());
+                    }
+                }
+            }
+            if (forwardedFor.size() >= hops) {
+                return forwardedFor.get(forwardedFor.size() - hops);
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
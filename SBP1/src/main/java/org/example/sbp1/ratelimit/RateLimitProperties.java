@@ -0,0 +1,57 @@
+package org.example.sbp1.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "library.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Number of trusted proxies in front of the app that append to X-Forwarded-For (1 on Railway/Heroku).
+    // The client id is the hop that many entries from the right, i.e. the address the outermost trusted
+    // proxy saw; anything further left is supplied by the client and ignored. 0 uses the TCP peer address,
+    // which behind a proxy puts all users in a single client bucket per endpoint.
+    private int trustedProxyHops = 0;
+
+    // Hard cap on tracked client buckets; clients beyond it share one overflow bucket per endpoint
+    // until the periodic sweep drops idle (fully refilled) buckets
+    private int maxTrackedClients = 10_000;
+
+    private Map<String, Policy> policies = new HashMap<>();
+
+    private Concurrency concurrency = new Concurrency();
+
+    public Policy policy(String name) {
+        Policy policy = policies.get(name);
+        if (policy == null) {
+            policy = policies.get("default");
+        }
+        return policy != null ? policy : new Policy();
+    }
+
+    @Data
+    public static class Policy {
+        // Token bucket shared by one client on one endpoint
+        private double clientPermitsPerSecond = 20;
+        private double clientBurst = 40;
+        // Token bucket shared by every client on one endpoint
+        private double endpointPermitsPerSecond = 200;
+        private double endpointBurst = 400;
+    }
+
+    @Data
+    public static class Concurrency {
+        private boolean enabled = true;
+        private int initialLimit = 10;
+        private int minLimit = 2;
+        // Keep at or below the Hikari pool size so excess requests are shed instead of queued
+        private int maxLimit = 10;
+        private double smoothing = 0.2;
+        private double rttTolerance = 1.5;
+    }
+}
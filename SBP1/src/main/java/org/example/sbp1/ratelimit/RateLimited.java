@@ -0,0 +1,16 @@
+package org.example.sbp1.ratelimit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Selects the rate-limit policy (configured under {@code library.rate-limit.policies.<name>})
+ * for a controller method or a whole controller. Handlers without it use the "default" policy.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimited {
+    String value();
+}
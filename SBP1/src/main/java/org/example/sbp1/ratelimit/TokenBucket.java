@@ -0,0 +1,59 @@
+package org.example.sbp1.ratelimit;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Classic token bucket: holds up to {@code capacity} tokens and refills continuously at
+ * {@code permitsPerSecond}. One token is taken per request.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final LongSupplier nanoClock;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double permitsPerSecond, double capacity) {
+        this(permitsPerSecond, capacity, System::nanoTime);
+    }
+
+    TokenBucket(double permitsPerSecond, double capacity, LongSupplier nanoClock) {
+        this.capacity = capacity;
+        this.tokensPerNano = permitsPerSecond / 1_000_000_000d;
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.lastRefill = nanoClock.getAsLong();
+    }
+
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /** Seconds until the next token is available, rounded up (used for Retry-After). */
+    public synchronized long secondsUntilNextToken() {
+        refill();
+        if (tokens >= 1 || tokensPerNano <= 0) {
+            return tokens >= 1 ? 0 : 1;
+        }
+        double nanos = (1 - tokens) / tokensPerNano;
+        return Math.max(1, (long) Math.ceil(nanos / 1_000_000_000d));
+    }
+
+    /** A full bucket has not been used for a while and can be dropped from client tables. */
+    public synchronized boolean isFull() {
+        refill();
+        return tokens >= capacity;
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
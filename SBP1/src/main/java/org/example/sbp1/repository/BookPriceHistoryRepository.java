@@ -0,0 +1,11 @@
+package org.example.sbp1.repository;
+
+import org.example.sbp1.model.BookPriceHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface BookPriceHistoryRepository extends JpaRepository<BookPriceHistory, Long> {
+    List<BookPriceHistory> findByIsbnOrderByChangedAtAscIdAsc(String isbn);
+    long countByRunId(String runId);
+}
@@ -0,0 +1,17 @@
+package org.example.sbp1.repository;
+
+import org.example.sbp1.model.Book;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/** Custom fragment of {@link BookRepository} for paged queries that skip the COUNT(*). */
+public interface BookQueryRepository {
+
+    /** Books matching {@code spec}, author and publisher fetched in the same statement. */
+    List<Book> findSlice(Specification<Book> spec, Sort sort, int offset, int limit);
+
+    /** Row count estimate from InnoDB statistics; cheap but approximate. */
+    long estimateBookCount();
+}
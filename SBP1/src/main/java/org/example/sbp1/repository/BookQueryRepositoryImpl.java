@@ -0,0 +1,56 @@
+package org.example.sbp1.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.example.sbp1.model.Book;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BookQueryRepositoryImpl implements BookQueryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Book> findSlice(Specification<Book> spec, Sort sort, int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = cb.createQuery(Book.class);
+        Root<Book> root = query.from(Book.class);
+        // Both are mandatory many-to-one, fetch them with the page instead of one query per book
+        root.fetch("author");
+        root.fetch("publisher");
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            orders.add(order.isAscending() ? cb.asc(root.get(order.getProperty())) : cb.desc(root.get(order.getProperty())));
+        }
+        query.select(root).orderBy(orders);
+
+        return entityManager.createQuery(query)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public long estimateBookCount() {
+        Object rows = entityManager.createNativeQuery(
+                        "SELECT table_rows FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = 'books'")
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+        return rows instanceof Number number ? number.longValue() : 0;
+    }
+}
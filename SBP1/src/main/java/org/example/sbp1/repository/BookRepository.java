@@ -2,11 +2,14 @@ package org.example.sbp1.repository;
 
 import org.example.sbp1.model.Book;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book>, BookQueryRepository {
     boolean existsByTitle(String title);
     void deleteByIsbn(String isbn);
     boolean existsByIsbn(String isbn);
@@ -17,4 +20,8 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     List<Book> findByAuthor_NameContainingIgnoreCase(String authorName);
     Optional<Book> findByIsbn(String isbn);
     List<Book> findByCategoryContainingIgnoreCase(String category);
+
+    // Scalar columns only (no entities, no tags), used to build the in-memory catalog
+    @Query("select b.id, b.title, b.isbn, b.price, b.quantity, b.category, b.author.id, b.publisher.id from Book b order by b.id")
+    Stream<Object[]> streamCatalogRows();
 }
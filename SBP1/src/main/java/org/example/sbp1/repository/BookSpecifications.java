@@ -0,0 +1,159 @@
+package org.example.sbp1.repository;
+
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.example.sbp1.dto.BookQueryRequest;
+import org.example.sbp1.model.Book;
+import org.example.sbp1.model.Tag;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Composable predicates for {@code /api/books/query}. Each filter becomes one predicate of a single
+ * SQL statement, so combined criteria never have to be intersected in the client.
+ */
+public final class BookSpecifications {
+
+    // Public sort key -> Book attribute; only index-backed columns (id is the PK, isbn is unique)
+    private static final Map<String, String> SORT_KEYS = Map.of(
+            "id", "id",
+            "title", "title",
+            "isbn", "isbn",
+            "price", "price",
+            "category", "category");
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private BookSpecifications() {
+    }
+
+    /** AND of every filter present in the request; an empty request matches all books. */
+    public static Specification<Book> matching(BookQueryRequest request) {
+        List<Specification<Book>> specs = new ArrayList<>();
+        if (hasText(request.getTitle())) {
+            specs.add(titleContains(request.getTitle()));
+        }
+        if (hasText(request.getAuthorName())) {
+            specs.add(authorNameContains(request.getAuthorName()));
+        }
+        if (request.getAuthorId() != null) {
+            specs.add(authorId(request.getAuthorId()));
+        }
+        if (request.getPublisherId() != null) {
+            specs.add(publisherId(request.getPublisherId()));
+        }
+        if (hasText(request.getCategory())) {
+            specs.add(category(request.getCategory()));
+        }
+        if (request.getMinPrice() != null) {
+            specs.add(priceAtLeast(request.getMinPrice()));
+        }
+        if (request.getMaxPrice() != null) {
+            specs.add(priceAtMost(request.getMaxPrice()));
+        }
+        if (Boolean.TRUE.equals(request.getInStock())) {
+            specs.add(inStock());
+        }
+        if (hasText(request.getTag())) {
+            specs.add(taggedWith(request.getTag()));
+        }
+        return Specification.allOf(specs);
+    }
+
+    public static boolean isUnfiltered(BookQueryRequest request) {
+        return !hasText(request.getTitle()) && !hasText(request.getAuthorName())
+                && request.getAuthorId() == null && request.getPublisherId() == null
+                && !hasText(request.getCategory()) && request.getMinPrice() == null
+                && request.getMaxPrice() == null && !Boolean.TRUE.equals(request.getInStock())
+                && !hasText(request.getTag());
+    }
+
+    /**
+     * Parses a comma-separated sort parameter ("-price,title", "-" for descending) and appends an
+     * ascending id tie-break unless id is already a key, so pages are stable.
+     */
+    public static Sort parseSort(String sortParam) {
+        List<Sort.Order> orders = new ArrayList<>();
+        boolean hasId = false;
+        if (sortParam != null && !sortParam.isBlank()) {
+            for (String key : sortParam.split(",")) {
+                key = key.trim();
+                boolean descending = key.startsWith("-");
+                String name = descending ? key.substring(1) : key;
+                String property = SORT_KEYS.get(name);
+                if (property == null) {
+                    throw new IllegalArgumentException("Unsupported sort key: " + name + " (allowed: " + SORT_KEYS.keySet() + ")");
+                }
+                hasId |= property.equals("id");
+                orders.add(descending ? Sort.Order.desc(property) : Sort.Order.asc(property));
+            }
+        }
+        if (!hasId) {
+            orders.add(Sort.Order.asc("id"));
+        }
+        return Sort.by(orders);
+    }
+
+    public static Specification<Book> titleContains(String title) {
+        return (root, query, cb) -> cb.like(cb.upper(root.get("title")), containsPattern(title), LIKE_ESCAPE);
+    }
+
+    public static Specification<Book> authorNameContains(String authorName) {
+        return (root, query, cb) -> cb.like(cb.upper(root.get("author").get("name")), containsPattern(authorName), LIKE_ESCAPE);
+    }
+
+    /** Upper-cased "%text%" with the LIKE wildcards in {@code text} escaped, so "50%" matches literally. */
+    static String containsPattern(String text) {
+        String escaped = text.toUpperCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+
+    public static Specification<Book> authorId(int authorId) {
+        return (root, query, cb) -> cb.equal(root.get("author").get("id"), authorId);
+    }
+
+    public static Specification<Book> publisherId(int publisherId) {
+        return (root, query, cb) -> cb.equal(root.get("publisher").get("id"), publisherId);
+    }
+
+    // Exact match (case-insensitive through the column collation) so idx_books_category applies
+    public static Specification<Book> category(String category) {
+        return (root, query, cb) -> cb.equal(root.get("category"), category);
+    }
+
+    public static Specification<Book> priceAtLeast(double minPrice) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), minPrice);
+    }
+
+    public static Specification<Book> priceAtMost(double maxPrice) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), maxPrice);
+    }
+
+    public static Specification<Book> inStock() {
+        return (root, query, cb) -> cb.greaterThan(root.get("quantity"), 0);
+    }
+
+    // EXISTS subquery instead of a join, so a book with several tags is never returned twice
+    public static Specification<Book> taggedWith(String tagName) {
+        return (root, query, cb) -> {
+            Subquery<Integer> tagged = query.subquery(Integer.class);
+            Root<Book> book = tagged.from(Book.class);
+            Join<Book, Tag> tag = book.join("tags");
+            tagged.select(book.get("id"))
+                    .where(cb.equal(book.get("id"), root.get("id")), cb.equal(tag.get("name"), tagName));
+            return cb.exists(tagged);
+        };
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+}
@@ -3,12 +3,25 @@ package org.example.sbp1.repository;
 
 import org.example.sbp1.model.Tag;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface TagRepository extends JpaRepository<Tag, Long> {
     boolean findById(int id);
     Optional<Tag> findByName(String name);
+    List<Tag> findAllByNameIn(Collection<String> names);
+
+    // Race-free create: relies on the unique key on tag.name, no lock or read-before-write
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO tag (name) VALUES (:name) ON DUPLICATE KEY UPDATE name = name", nativeQuery = true)
+    void insertIfAbsent(@Param("name") String name);
 
 
 
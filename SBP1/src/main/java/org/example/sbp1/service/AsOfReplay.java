@@ -0,0 +1,59 @@
+package org.example.sbp1.service;
+
+import org.example.sbp1.dto.BookAsOfPage;
+import org.example.sbp1.dto.BookAsOfView;
+import org.example.sbp1.model.BookPriceHistory.ChangeType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * In-memory half of {@link PriceHistoryService#catalogAsOf}: starts from a page of base rows (a
+ * checkpoint or the live table) and undoes history entries fed newest first. No database access,
+ * so the replay rules can be tested on their own.
+ */
+final class AsOfReplay {
+
+    private final TreeMap<Integer, BookAsOfView> state = new TreeMap<>();
+    private final boolean hasNext;
+    private final int lastId;
+
+    /**
+     * @param baseRows  the page's starting rows, at most {@code size} of them
+     * @param singleBook true for an ISBN lookup, which never has a next page
+     */
+    AsOfReplay(List<BookAsOfView> baseRows, int size, boolean singleBook) {
+        for (BookAsOfView row : baseRows) {
+            state.put(row.getBookId(), row);
+        }
+        // A full page ends at its last id; books deleted since the timestamp are restored within that range
+        this.hasNext = !singleBook && state.size() == size;
+        this.lastId = hasNext ? state.lastKey() : Integer.MAX_VALUE;
+    }
+
+    /** Highest book id whose history belongs to this page. */
+    int lastId() {
+        return lastId;
+    }
+
+    /** Undoes one history entry; entries must arrive newest first. */
+    void undo(int bookId, String isbn, ChangeType type, double previousPrice, int previousQuantity) {
+        if (type == ChangeType.CREATE) {
+            state.remove(bookId);
+            return;
+        }
+        BookAsOfView view = state.get(bookId);
+        if (view == null) {
+            // Deleted after the timestamp: bring it back with its last known values
+            state.put(bookId, new BookAsOfView(bookId, isbn, previousPrice, previousQuantity));
+        } else {
+            view.setPrice(previousPrice);
+            view.setQuantity(previousQuantity);
+        }
+    }
+
+    BookAsOfPage page() {
+        return new BookAsOfPage(new ArrayList<>(state.values()), hasNext, hasNext ? lastId : null);
+    }
+}
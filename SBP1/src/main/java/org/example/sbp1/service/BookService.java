@@ -1,40 +1,79 @@
 package org.example.sbp1.service;
 
+import org.example.sbp1.catalog.CatalogFilter;
+import org.example.sbp1.catalog.CatalogSnapshotService;
+import org.example.sbp1.dto.BookAsOfPage;
+import org.example.sbp1.dto.BookQueryRequest;
+import org.example.sbp1.dto.BookQueryResponse;
+import org.example.sbp1.dto.CatalogBookView;
 import org.example.sbp1.dto.CreateBookRequest;
+import org.example.sbp1.dto.PriceRunResponse;
+import org.example.sbp1.exception.DuplicateIsbnException;
 import org.example.sbp1.model.Author;
 import org.example.sbp1.model.Book;
+import org.example.sbp1.model.BookPriceHistory;
+import org.example.sbp1.model.BookPriceHistory.ChangeType;
 import org.example.sbp1.model.Publisher;
 import org.example.sbp1.model.Tag;
 import org.example.sbp1.repository.AuthorRepository;
 import org.example.sbp1.repository.BookRepository;
+import org.example.sbp1.repository.BookSpecifications;
 import org.example.sbp1.repository.PublisherRepository;
 import org.example.sbp1.repository.TagRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 
 @Service
 public class BookService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_AS_OF_PAGE_SIZE = 1000;
+    // Length of the tag.name column
+    private static final int MAX_TAG_NAME_LENGTH = 255;
+
     private final BookRepository bookRepository;
     private final AuthorRepository authorRepository;
     private final PublisherRepository publisherRepository;
     private final TagRepository tagRepository;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final PriceHistoryService priceHistoryService;
+    private final IdempotencyService idempotencyService;
+    private final TransactionTemplate transactionTemplate;
+    private final StripedLocks isbnLocks = new StripedLocks(64);
 
-    public BookService(BookRepository bookRepository, AuthorRepository authorRepository, PublisherRepository publisherRepository, TagRepository tagRepository) {
+    public BookService(BookRepository bookRepository, AuthorRepository authorRepository, PublisherRepository publisherRepository, TagRepository tagRepository, CatalogSnapshotService catalogSnapshotService, PriceHistoryService priceHistoryService, IdempotencyService idempotencyService, PlatformTransactionManager transactionManager) {
         this.bookRepository = bookRepository;
         this.authorRepository = authorRepository;
         this.publisherRepository = publisherRepository;
         this.tagRepository = tagRepository;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.priceHistoryService = priceHistoryService;
+        this.idempotencyService = idempotencyService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
     // -------------------------
     // CREATE BOOK from DTO
     // -------------------------
-    public Book createBook(CreateBookRequest dto) {
+    // Safe to retry: a request replayed with the same Idempotency-Key returns the book created the
+    // first time. Creates of the same ISBN are serialized per JVM by a striped lock, and the unique
+    // constraints on isbn / idempotency key settle races between instances (409, never a 500).
+    public Book createBook(CreateBookRequest dto, String idempotencyKey) {
         // Validate request fields for nulls
         if ((dto.getAuthorId() == null) && (dto.getAuthorName() == null || dto.getAuthorName().trim().isEmpty())) {
             throw new IllegalArgumentException("Author information is required (id or name)");
@@ -59,9 +98,81 @@ public class BookService {
 
 
 
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > 128)) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to 128 characters");
+        }
+        List<String> tagNames = normalizeTagNames(dto.getTagNames());
+        String fingerprint = idempotencyKey != null ? idempotencyService.fingerprint(dto, tagNames) : null;
+        if (idempotencyKey != null) {
+            Optional<Book> replayed = idempotencyService.replay(idempotencyKey, fingerprint);
+            if (replayed.isPresent()) {
+                return replayed.get();
+            }
+        }
+
+        // Upsert missing tags by name up front, each in its own short transaction, so concurrent
+        // requests with the same new tag never insert it twice. Existing tags are only read:
+        // the upsert locks the row, which would serialize every create using a popular tag.
+        if (!tagNames.isEmpty()) {
+            Set<String> existing = tagRepository.findAllByNameIn(tagNames).stream()
+                    .map(tag -> tag.getName().toLowerCase(Locale.ROOT))
+                    .collect(Collectors.toSet());
+            tagNames.stream()
+                    .filter(name -> !existing.contains(name.toLowerCase(Locale.ROOT)))
+                    .forEach(tagRepository::insertIfAbsent);
+        }
+
+        Lock lock = isbnLocks.get(dto.getIsbn());
+        lock.lock();
+        try {
+            if (idempotencyKey != null) {
+                // Another request with this key may have finished while we waited for the lock
+                Optional<Book> replayed = idempotencyService.replay(idempotencyKey, fingerprint);
+                if (replayed.isPresent()) {
+                    return replayed.get();
+                }
+            }
+            return transactionTemplate.execute(status -> insertBook(dto, tagNames, idempotencyKey, fingerprint));
+        } catch (DataIntegrityViolationException e) {
+            // Lost the race to another instance: answer like the winner would have
+            if (idempotencyKey != null) {
+                Optional<Book> replayed = idempotencyService.replay(idempotencyKey, fingerprint);
+                if (replayed.isPresent()) {
+                    return replayed.get();
+                }
+            }
+            if (bookRepository.existsByIsbn(dto.getIsbn())) {
+                throw new DuplicateIsbnException(dto.getIsbn());
+            }
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Trimmed, non-blank, distinct tag names in request order; over-long names are a client error. */
+    static List<String> normalizeTagNames(List<String> names) {
+        if (names == null) {
+            return List.of();
+        }
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String name : names) {
+            if (name == null || name.isBlank()) {
+                continue;
+            }
+            String trimmed = name.trim();
+            if (trimmed.length() > MAX_TAG_NAME_LENGTH) {
+                throw new IllegalArgumentException("Tag names must be at most " + MAX_TAG_NAME_LENGTH + " characters");
+            }
+            normalized.add(trimmed);
+        }
+        return List.copyOf(normalized);
+    }
+
+    private Book insertBook(CreateBookRequest dto, List<String> tagNames, String idempotencyKey, String fingerprint) {
         // ISBN must be unique
         if (bookRepository.existsByIsbn(dto.getIsbn())) {
-            throw new RuntimeException("Book with ISBN already exists: " + dto.getIsbn());
+            throw new DuplicateIsbnException(dto.getIsbn());
         }
 
         // Load related entities
@@ -93,16 +204,15 @@ public class BookService {
                             .orElseThrow(() -> new RuntimeException("Tag not found: " + id)))
                     .collect(Collectors.toSet()));
         }
-        if (dto.getTagNames() != null) {
-            tags.addAll(dto.getTagNames().stream()
-                    .map(name -> tagRepository.findByName(name)
-                            .orElseGet(() -> {
-                                // Create new tag if it doesn't exist
-                                Tag newTag = new Tag();
-                                newTag.setName(name);
-                                return tagRepository.save(newTag);
-                            }))
-                    .collect(Collectors.toSet()));
+        if (!tagNames.isEmpty()) {
+            // Created (if missing) by insertIfAbsent before the transaction started
+            List<Tag> named = tagRepository.findAllByNameIn(tagNames);
+            for (String name : tagNames) {
+                if (named.stream().noneMatch(tag -> tag.getName().equalsIgnoreCase(name))) {
+                    throw new IllegalArgumentException("Tag not found: " + name);
+                }
+            }
+            tags.addAll(named);
         }
 
 
@@ -121,7 +231,14 @@ public class BookService {
         book.setPublisher(publisher);
         book.setTags(tags);
 
-        return bookRepository.save(book);
+        // Flush now so a duplicate ISBN fails here, inside the transaction, not at commit
+        Book saved = bookRepository.saveAndFlush(book);
+        if (idempotencyKey != null) {
+            idempotencyService.remember(idempotencyKey, fingerprint, saved);
+        }
+        priceHistoryService.recordCreate(saved);
+        catalogSnapshotService.booksSaved(List.of(saved));
+        return saved;
     }/* 
     public void SaveBook(Book book)
     {
@@ -135,6 +252,9 @@ public class BookService {
         }
     }*/
     public int Inventory(String category) {
+        if (catalogSnapshotService.isReady()) {
+            return catalogSnapshotService.current().countByCategory(category);
+        }
         int count = 0;
         int total = bookRepository.countByCategory(category);
         /*List<Book> books = bookRepository.SearchCategory(category);
@@ -143,21 +263,60 @@ public class BookService {
         }*/
         return total;
     }
-    public void update(){
+    @Transactional
+    public PriceRunResponse update(){
+        String runId = UUID.randomUUID().toString();
         List<Book> books = bookRepository.findAll();
-        for (Book book : books) {
+        double[] previousPrices = new double[books.size()];
+        for (int i = 0; i < books.size(); i++) {
+            Book book = books.get(i);
+            previousPrices[i] = book.getPrice();
             //bookRepository.UpdatePrice(book.getPrice() * 0.1);
             book.setPrice(book.getPrice() * 0.1);
         }
         bookRepository.saveAll(books);
+        priceHistoryService.recordPriceChanges(books, previousPrices, ChangeType.REPRICE, runId);
+        catalogSnapshotService.booksSaved(books);
+        return new PriceRunResponse(runId, books.size(), 0);
+    }
 
-
+    // -------------------------
+    // Roll back a repricing run
+    // -------------------------
+    @Transactional
+    public PriceRunResponse rollbackRun(String runId) {
+        long entries = priceHistoryService.countRunEntries(runId);
+        if (entries == 0) {
+            throw new RuntimeException("No price changes recorded for run: " + runId);
+        }
+        String rollbackRunId = UUID.randomUUID().toString();
+        // Books deleted or repriced again since the run are left alone and reported as skipped
+        int restored = priceHistoryService.rollbackRun(runId, rollbackRunId);
+        if (restored > 0 && catalogSnapshotService.isEnabled()) {
+            catalogSnapshotService.pricesChanged(priceHistoryService.runPrices(rollbackRunId));
+        }
+        return new PriceRunResponse(rollbackRunId, restored, (int) (entries - restored));
     }
+
     @Transactional
     public void deleteBook(String isbn){
+        // The DELETE history row and the snapshot update come from the Hibernate delete listeners
         bookRepository.deleteByIsbn(isbn);
     }
 
+    // Price history
+    public List<BookPriceHistory> priceHistory(String isbn) {
+        return priceHistoryService.historyOf(isbn);
+    }
+
+    public BookAsOfPage catalogAsOf(Instant timestamp, String isbn, int afterId, int size) {
+        if (size < 1 || size > MAX_AS_OF_PAGE_SIZE) {
+            throw new IllegalArgumentException("Size must be between 1 and " + MAX_AS_OF_PAGE_SIZE);
+        }
+        return priceHistoryService.catalogAsOf(timestamp, isbn == null || isbn.isBlank() ? null : isbn.trim(),
+                Math.max(0, afterId), size);
+    }
+
 
     public List<Book> displayAllBooks(){
         List<Book> books = bookRepository.findAll();
@@ -185,4 +344,59 @@ public class BookService {
         return bookRepository.findByCategoryContainingIgnoreCase(category);
     }
 
+    // -------------------------
+    // Multi-criteria query
+    // -------------------------
+    public BookQueryResponse query(BookQueryRequest request) {
+        if (request.getPage() < 0) {
+            throw new IllegalArgumentException("Page cannot be negative");
+        }
+        if (request.getSize() < 1 || request.getSize() > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        long firstRow = (long) request.getPage() * request.getSize();
+        if (firstRow > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Page is too large for size " + request.getSize());
+        }
+        Specification<Book> spec = BookSpecifications.matching(request);
+        Sort sort = BookSpecifications.parseSort(request.getSort());
+        int offset = (int) firstRow;
+
+        // Fetch one extra row to learn whether a next page exists without counting
+        List<Book> books = bookRepository.findSlice(spec, sort, offset, request.getSize() + 1);
+        boolean hasNext = books.size() > request.getSize();
+        if (hasNext) {
+            books = books.subList(0, request.getSize());
+        }
+
+        long total;
+        boolean exact;
+        if (!hasNext && (offset == 0 || !books.isEmpty())) {
+            // Last page: the total is known for free
+            total = offset + books.size();
+            exact = true;
+        } else if (request.isExactCount() || books.isEmpty()) {
+            // Past the end the offset says nothing about the total, so count
+            total = bookRepository.count(spec);
+            exact = true;
+        } else if (BookSpecifications.isUnfiltered(request)) {
+            total = Math.max(bookRepository.estimateBookCount(), offset + books.size() + (hasNext ? 1 : 0));
+            exact = false;
+        } else {
+            // Lower bound; clients that need the exact figure ask once with exactCount=true
+            total = offset + books.size() + (hasNext ? 1 : 0);
+            exact = false;
+        }
+        return new BookQueryResponse(books, request.getPage(), request.getSize(), hasNext, total, exact);
+    }
+
+    // Catalog snapshot reads (no ORM work per request)
+    public List<CatalogBookView> catalogBooks(CatalogFilter filter, int offset, int limit) {
+        return catalogSnapshotService.current().find(filter, offset, limit);
+    }
+
+    public int catalogCount(CatalogFilter filter) {
+        return catalogSnapshotService.current().count(filter);
+    }
+
 }
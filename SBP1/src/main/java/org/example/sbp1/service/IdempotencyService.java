@@ -0,0 +1,108 @@
+package org.example.sbp1.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.example.sbp1.dto.CreateBookRequest;
+import org.example.sbp1.exception.IdempotencyKeyReuseException;
+import org.example.sbp1.exception.IdempotentResultGoneException;
+import org.example.sbp1.model.Book;
+import org.example.sbp1.model.IdempotencyRecord;
+import org.example.sbp1.repository.BookRepository;
+import org.example.sbp1.repository.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+@Service
+public class IdempotencyService {
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final BookRepository bookRepository;
+    private final Duration ttl;
+    private final ObjectMapper canonicalMapper;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository, BookRepository bookRepository,
+                              ObjectMapper objectMapper, @Value("${library.idempotency.ttl-hours:24}") int ttlHours) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.bookRepository = bookRepository;
+        this.canonicalMapper = objectMapper.copy()
+                .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+                .configure(SerializationFeature.INDENT_OUTPUT, false);
+        this.ttl = Duration.ofHours(ttlHours);
+    }
+
+    /** The book already created for this key, or empty if the key is new. */
+    public Optional<Book> replay(String key, String fingerprint) {
+        Optional<IdempotencyRecord> record = idempotencyRecordRepository.findByIdempotencyKey(key);
+        if (record.isEmpty()) {
+            return Optional.empty();
+        }
+        if (!record.get().getRequestHash().equals(fingerprint)) {
+            throw new IdempotencyKeyReuseException(key);
+        }
+        long bookId = record.get().getBookId();
+        return Optional.of(bookRepository.findById(bookId)
+                .orElseThrow(() -> new IdempotentResultGoneException(key)));
+    }
+
+    /** Stores the key in the caller's transaction; a concurrent duplicate fails on the unique key. */
+    public void remember(String key, String fingerprint, Book book) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setIdempotencyKey(key);
+        record.setRequestHash(fingerprint);
+        record.setBookId(book.getId());
+        record.setCreatedAt(Instant.now());
+        idempotencyRecordRepository.saveAndFlush(record);
+    }
+
+    /**
+     * Forgets keys older than the TTL. A retry after that is treated as a new request, which the
+     * unique ISBN still turns into a 409 if the first attempt went through.
+     */
+    @Scheduled(fixedDelayString = "${library.idempotency.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        idempotencyRecordRepository.deleteCreatedBefore(Instant.now().minus(ttl));
+    }
+
+    /**
+     * SHA-256 of the request as JSON with sorted keys, so the hash only changes when the content does:
+     * tag ids and the normalized tag names are sorted, as their order carries no meaning.
+     */
+    public String fingerprint(CreateBookRequest request, List<String> tagNames) {
+        Map<String, Object> canonical = new TreeMap<>();
+        canonical.put("title", request.getTitle());
+        canonical.put("category", request.getCategory());
+        canonical.put("isbn", request.getIsbn());
+        canonical.put("price", request.getPrice());
+        canonical.put("quantity", request.getQuantity());
+        canonical.put("authorId", request.getAuthorId());
+        canonical.put("publisherId", request.getPublisherId());
+        canonical.put("authorName", request.getAuthorName());
+        canonical.put("publisherName", request.getPublisherName());
+        canonical.put("tagIds", request.getTagIds() == null ? null : request.getTagIds().stream()
+                .sorted(Comparator.nullsFirst(Comparator.naturalOrder())).toList());
+        canonical.put("tagNames", new TreeSet<>(tagNames));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonicalMapper.writeValueAsBytes(canonical)));
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.sbp1.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.sbp1.model.Book;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PreDeleteEvent;
+import org.hibernate.event.spi.PreDeleteEventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records the DELETE history row for every removed book, including books removed by cascade when
+ * their author or publisher is deleted. The row joins the deleting transaction. Registered with
+ * Hibernate's event registry, like the catalog's delete listener, so {@link Book} stays free of
+ * service dependencies.
+ */
+@Component
+public class PriceHistoryListener implements PreDeleteEventListener {
+
+    private final PriceHistoryService priceHistoryService;
+
+    public PriceHistoryListener(EntityManagerFactory entityManagerFactory, PriceHistoryService priceHistoryService) {
+        this.priceHistoryService = priceHistoryService;
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .appendListeners(EventType.PRE_DELETE, this);
+    }
+
+    @Override
+    public boolean onPreDelete(PreDeleteEvent event) {
+        if (event.getEntity() instanceof Book book) {
+            priceHistoryService.recordDelete(book);
+        }
+        // Never veto the delete
+        return false;
+    }
+}
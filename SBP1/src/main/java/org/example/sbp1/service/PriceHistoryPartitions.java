@@ -0,0 +1,122 @@
+package org.example.sbp1.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Rotates the monthly partitions of book_price_history (see db/book_price_history_partitioning.sql):
+ * splits the coming months off the p_future catch-all before they start and, when a retention is
+ * configured, drops whole months that fell out of it. Runs at startup and daily; does nothing while
+ * the table is not partitioned.
+ */
+@Component
+public class PriceHistoryPartitions {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceHistoryPartitions.class);
+
+    static final String FUTURE = "p_future";
+    private static final DateTimeFormatter NAME = DateTimeFormatter.ofPattern("'p'yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public PriceHistoryPartitions(JdbcTemplate jdbcTemplate,
+                                  @Value("${library.history.partitions.months-ahead:3}") int monthsAhead,
+                                  @Value("${library.history.partitions.retention-months:0}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${library.history.partitions.cron:0 30 2 * * *}")
+    public void rotate() {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT partition_name FROM information_schema.partitions "
+                        + "WHERE table_schema = DATABASE() AND table_name = 'book_price_history' AND partition_name IS NOT NULL",
+                String.class);
+        if (partitions.isEmpty()) {
+            return;
+        }
+        if (!partitions.contains(FUTURE)) {
+            log.warn("book_price_history is partitioned without a {} partition; not rotating", FUTURE);
+            return;
+        }
+        List<YearMonth> months = months(partitions);
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+
+        List<YearMonth> added = monthsToAdd(months, current, monthsAhead);
+        if (!added.isEmpty()) {
+            jdbcTemplate.execute(reorganizeSql(added));
+        }
+        List<YearMonth> dropped = retentionMonths > 0 ? monthsToDrop(months, current, retentionMonths) : List.of();
+        for (YearMonth month : dropped) {
+            jdbcTemplate.execute("ALTER TABLE book_price_history DROP PARTITION " + NAME.format(month));
+        }
+        if (!added.isEmpty() || !dropped.isEmpty()) {
+            log.info("Price history partitions rotated: added {}, dropped {}", added, dropped);
+        }
+    }
+
+    /** Months of the pYYYY_MM partitions, oldest first; other names are ignored. */
+    static List<YearMonth> months(List<String> partitionNames) {
+        List<YearMonth> months = new ArrayList<>();
+        for (String name : partitionNames) {
+            try {
+                months.add(YearMonth.parse(name, NAME));
+            } catch (DateTimeParseException e) {
+                // p_future or a hand-made partition
+            }
+        }
+        Collections.sort(months);
+        return months;
+    }
+
+    /** Every month after the newest existing one, up to {@code monthsAhead} months after the current one. */
+    static List<YearMonth> monthsToAdd(List<YearMonth> existing, YearMonth current, int monthsAhead) {
+        YearMonth next = existing.isEmpty() ? current : existing.get(existing.size() - 1).plusMonths(1);
+        List<YearMonth> months = new ArrayList<>();
+        for (YearMonth month = next; !month.isAfter(current.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+            months.add(month);
+        }
+        return months;
+    }
+
+    /** Months that ended more than {@code retentionMonths} months ago; the newest partition is always kept. */
+    static List<YearMonth> monthsToDrop(List<YearMonth> existing, YearMonth current, int retentionMonths) {
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        List<YearMonth> months = new ArrayList<>();
+        for (int i = 0; i < existing.size() - 1; i++) {
+            if (existing.get(i).isBefore(oldestKept)) {
+                months.add(existing.get(i));
+            }
+        }
+        return months;
+    }
+
+    static String reorganizeSql(List<YearMonth> months) {
+        StringJoiner partitions = new StringJoiner(", ",
+                "ALTER TABLE book_price_history REORGANIZE PARTITION " + FUTURE + " INTO (", ")");
+        for (YearMonth month : months) {
+            partitions.add("PARTITION " + NAME.format(month) + " VALUES LESS THAN ('" + month.plusMonths(1).atDay(1) + "')");
+        }
+        partitions.add("PARTITION " + FUTURE + " VALUES LESS THAN (MAXVALUE)");
+        return partitions.toString();
+    }
+}
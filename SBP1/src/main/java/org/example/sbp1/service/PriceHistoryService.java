@@ -0,0 +1,272 @@
+package org.example.sbp1.service;
+
+import org.example.sbp1.dto.BookAsOfPage;
+import org.example.sbp1.dto.BookAsOfView;
+import org.example.sbp1.model.Book;
+import org.example.sbp1.model.BookPriceHistory;
+import org.example.sbp1.model.BookPriceHistory.ChangeType;
+import org.example.sbp1.repository.BookPriceHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes and reads the append-only price history. Writes join the caller's transaction and go out
+ * as JDBC batches (one round trip per {@value #BATCH_SIZE} rows with rewriteBatchedStatements),
+ * so a bulk repricing costs a few multi-row INSERTs rather than one statement per book.
+ */
+@Service
+public class PriceHistoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceHistoryService.class);
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int CHECKPOINT_CHUNK = 5000;
+
+    private static final String INSERT_SQL = "INSERT INTO book_price_history "
+            + "(book_id, isbn, change_type, price, quantity, previous_price, previous_quantity, run_id, changed_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final BookPriceHistoryRepository historyRepository;
+    private final Duration checkpointRetention;
+    private final TransactionTemplate checkpointTransaction;
+
+    public PriceHistoryService(JdbcTemplate jdbcTemplate, DataSource dataSource, BookPriceHistoryRepository historyRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${library.history.checkpoint.retention-days:90}") int checkpointRetentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.historyRepository = historyRepository;
+        this.checkpointRetention = Duration.ofDays(checkpointRetentionDays);
+        this.checkpointTransaction = new TransactionTemplate(transactionManager);
+        this.checkpointTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        // Integer.MIN_VALUE makes Connector/J stream rows instead of buffering the whole result
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    // -------------------------
+    // Writes
+    // -------------------------
+
+    public void recordCreate(Book book) {
+        append(List.of(entry(book, ChangeType.CREATE, book.getPrice(), book.getQuantity(), null, null, null)));
+    }
+
+    public void recordDelete(Book book) {
+        append(List.of(entry(book, ChangeType.DELETE, null, null, book.getPrice(), book.getQuantity(), null)));
+    }
+
+    /** Records one price change per book; {@code previousPrices} is indexed like {@code books}. */
+    public void recordPriceChanges(List<Book> books, double[] previousPrices, ChangeType type, String runId) {
+        List<BookPriceHistory> entries = new ArrayList<>(books.size());
+        for (int i = 0; i < books.size(); i++) {
+            Book book = books.get(i);
+            entries.add(entry(book, type, book.getPrice(), book.getQuantity(), previousPrices[i], book.getQuantity(), runId));
+        }
+        append(entries);
+    }
+
+    private void append(List<BookPriceHistory> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, BATCH_SIZE, (ps, entry) -> {
+            ps.setInt(1, entry.getBookId());
+            ps.setString(2, entry.getIsbn());
+            ps.setString(3, entry.getChangeType().name());
+            ps.setObject(4, entry.getPrice(), Types.DOUBLE);
+            ps.setObject(5, entry.getQuantity(), Types.INTEGER);
+            ps.setObject(6, entry.getPreviousPrice(), Types.DOUBLE);
+            ps.setObject(7, entry.getPreviousQuantity(), Types.INTEGER);
+            ps.setString(8, entry.getRunId());
+            ps.setTimestamp(9, now);
+        });
+    }
+
+    private static BookPriceHistory entry(Book book, ChangeType type, Double price, Integer quantity,
+                                          Double previousPrice, Integer previousQuantity, String runId) {
+        BookPriceHistory entry = new BookPriceHistory();
+        entry.setBookId(book.getId());
+        entry.setIsbn(book.getIsbn());
+        entry.setChangeType(type);
+        entry.setPrice(price);
+        entry.setQuantity(quantity);
+        entry.setPreviousPrice(previousPrice);
+        entry.setPreviousQuantity(previousQuantity);
+        entry.setRunId(runId);
+        return entry;
+    }
+
+    /**
+     * Restores the previous price of every book of {@code runId} whose price is still the one the
+     * run set, without loading any entity: one INSERT ... SELECT writes the ROLLBACK rows under
+     * {@code rollbackRunId}, then one UPDATE ... JOIN applies them. The INSERT's locking read keeps
+     * the matched books from changing in between. Returns the number of books restored.
+     */
+    public int rollbackRun(String runId, String rollbackRunId) {
+        int restored = jdbcTemplate.update(
+                "INSERT INTO book_price_history "
+                        + "(book_id, isbn, change_type, price, quantity, previous_price, previous_quantity, run_id, changed_at) "
+                        + "SELECT b.id, b.isbn, ?, h.previous_price, b.quantity, b.price, b.quantity, ?, ? "
+                        + "FROM books b JOIN book_price_history h ON h.book_id = b.id "
+                        + "WHERE h.run_id = ? AND h.previous_price IS NOT NULL AND b.price = h.price",
+                ChangeType.ROLLBACK.name(), rollbackRunId, Timestamp.from(Instant.now()), runId);
+        if (restored > 0) {
+            jdbcTemplate.update(
+                    "UPDATE books b JOIN book_price_history r ON r.book_id = b.id "
+                            + "SET b.price = r.price WHERE r.run_id = ?",
+                    rollbackRunId);
+        }
+        return restored;
+    }
+
+    /**
+     * Writes a checkpoint of every book, then drops checkpoints older than the retention period.
+     * The books are read in id order, {@value #CHECKPOINT_CHUNK} at a time, with plain SELECTs inside
+     * one REPEATABLE READ transaction: InnoDB serves them from a single consistent snapshot without
+     * locking, so the checkpoint is point-in-time and writers to books are never blocked (an
+     * INSERT ... SELECT would take shared next-key locks on the whole table). Each chunk goes out
+     * as one JDBC batch. Expired rows are deleted in bounded chunks, each in its own short statement.
+     */
+    @Scheduled(cron = "${library.history.checkpoint.cron:0 0 3 * * SUN}")
+    public void writeCheckpoint() {
+        Instant now = Instant.now();
+        Timestamp checkpointAt = Timestamp.from(now);
+        Integer books = checkpointTransaction.execute(status -> {
+            int copied = 0;
+            int lastId = 0;
+            while (true) {
+                List<Object[]> chunk = jdbcTemplate.query(
+                        "SELECT id, isbn, price, quantity FROM books WHERE id > ? ORDER BY id LIMIT ?",
+                        (rs, rowNum) -> new Object[]{rs.getInt(1), rs.getString(2), rs.getDouble(3), rs.getInt(4)},
+                        lastId, CHECKPOINT_CHUNK);
+                if (chunk.isEmpty()) {
+                    return copied;
+                }
+                jdbcTemplate.batchUpdate(
+                        "INSERT INTO book_price_checkpoint (checkpoint_at, book_id, isbn, price, quantity) VALUES (?, ?, ?, ?, ?)",
+                        chunk, chunk.size(), (ps, row) -> {
+                            ps.setTimestamp(1, checkpointAt);
+                            ps.setInt(2, (Integer) row[0]);
+                            ps.setString(3, (String) row[1]);
+                            ps.setDouble(4, (Double) row[2]);
+                            ps.setInt(5, (Integer) row[3]);
+                        });
+                copied += chunk.size();
+                lastId = (Integer) chunk.get(chunk.size() - 1)[0];
+            }
+        });
+
+        Timestamp cutoff = Timestamp.from(now.minus(checkpointRetention));
+        int expired = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update("DELETE FROM book_price_checkpoint WHERE checkpoint_at < ? LIMIT " + CHECKPOINT_CHUNK, cutoff);
+            expired += deleted;
+        } while (deleted == CHECKPOINT_CHUNK);
+        log.info("Price checkpoint written: {} books, {} expired rows removed", books, expired);
+    }
+
+    // -------------------------
+    // Reads
+    // -------------------------
+
+    public List<BookPriceHistory> historyOf(String isbn) {
+        return historyRepository.findByIsbnOrderByChangedAtAscIdAsc(isbn);
+    }
+
+    public long countRunEntries(String runId) {
+        return historyRepository.countByRunId(runId);
+    }
+
+    /** New price of each book changed by {@code runId}, keyed by book id. */
+    public Map<Integer, Double> runPrices(String runId) {
+        Map<Integer, Double> prices = new HashMap<>();
+        jdbcTemplate.query("SELECT book_id, price FROM book_price_history WHERE run_id = ? AND price IS NOT NULL",
+                rs -> {
+                    prices.put(rs.getInt(1), rs.getDouble(2));
+                },
+                runId);
+        return prices;
+    }
+
+    /**
+     * One page of the catalog (by book id, or the single book {@code isbn}) as it was at
+     * {@code timestamp}. Starts from the first checkpoint taken at or after the timestamp, or from
+     * the live table when there is none, and undoes, newest first, the history recorded between the
+     * timestamp and that starting point for the books of the page only. Books that predate the
+     * history table are still answered correctly. Books deleted since the timestamp are restored
+     * within the page's id range, so a page can hold more than {@code size} rows.
+     */
+    @Transactional(readOnly = true)
+    public BookAsOfPage catalogAsOf(Instant timestamp, String isbn, int afterId, int size) {
+        Timestamp from = Timestamp.from(timestamp);
+        Timestamp checkpoint = jdbcTemplate.queryForObject(
+                "SELECT MIN(checkpoint_at) FROM book_price_checkpoint WHERE checkpoint_at >= ?", Timestamp.class, from);
+
+        // Starting rows for the page
+        StringBuilder base = new StringBuilder(checkpoint == null
+                ? "SELECT id, isbn, price, quantity FROM books WHERE "
+                : "SELECT book_id, isbn, price, quantity FROM book_price_checkpoint WHERE checkpoint_at = ? AND ");
+        List<Object> baseArgs = new ArrayList<>();
+        if (checkpoint != null) {
+            baseArgs.add(checkpoint);
+        }
+        if (isbn != null) {
+            base.append("isbn = ?");
+            baseArgs.add(isbn);
+        } else {
+            base.append(checkpoint == null ? "id > ? ORDER BY id LIMIT ?" : "book_id > ? ORDER BY book_id LIMIT ?");
+            baseArgs.add(afterId);
+            baseArgs.add(size);
+        }
+        List<BookAsOfView> baseRows = jdbcTemplate.query(base.toString(),
+                (rs, rowNum) -> new BookAsOfView(rs.getInt(1), rs.getString(2), rs.getDouble(3), rs.getInt(4)),
+                baseArgs.toArray());
+        AsOfReplay replay = new AsOfReplay(baseRows, size, isbn != null);
+
+        StringBuilder history = new StringBuilder(
+                "SELECT book_id, isbn, change_type, previous_price, previous_quantity FROM book_price_history WHERE ");
+        List<Object> historyArgs = new ArrayList<>();
+        if (isbn != null) {
+            history.append("isbn = ?");
+            historyArgs.add(isbn);
+        } else {
+            history.append("book_id > ? AND book_id <= ?");
+            historyArgs.add(afterId);
+            historyArgs.add(replay.lastId());
+        }
+        history.append(" AND changed_at > ?");
+        historyArgs.add(from);
+        if (checkpoint != null) {
+            history.append(" AND changed_at <= ?");
+            historyArgs.add(checkpoint);
+        }
+        history.append(" ORDER BY changed_at DESC, id DESC");
+        streamingJdbcTemplate.query(history.toString(), rs -> {
+            replay.undo(rs.getInt(1), rs.getString(2), ChangeType.valueOf(rs.getString(3)),
+                    rs.getDouble(4), rs.getInt(5));
+        }, historyArgs.toArray());
+        return replay.page();
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.sbp1.service;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed pool of locks picked by key hash: requests on the same key (e.g. an ISBN) are serialized,
+ * while unrelated keys almost never contend and no global lock is taken.
+ */
+class StripedLocks {
+
+    private final Lock[] locks;
+
+    StripedLocks(int stripes) {
+        locks = new Lock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    Lock get(String key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return locks[Math.floorMod(hash, locks.length)];
+    }
+}
@@ -0,0 +1,38 @@
+-- Monthly range partitioning for the append-only price history.
+--
+-- Hibernate (ddl-auto=update) creates book_price_history as a plain table; run this once to
+-- partition it by changed_at. As-of queries read the history between their timestamp and the
+-- next weekly checkpoint (book_price_checkpoint), so only the partitions covering that window
+-- are scanned; without a later checkpoint they read everything newer than the timestamp.
+-- Expired months can be dropped without a DELETE.
+--
+-- MySQL requires the partitioning column in every unique key, hence the wider primary key.
+-- The entity still uses id alone as its identifier, which stays unique.
+
+USE librarydb;
+
+ALTER TABLE book_price_history
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, changed_at);
+
+-- Starts with the current month (which also holds every older row) and the p_future catch-all.
+-- The application (PriceHistoryPartitions) takes it from there: at startup and daily it splits
+-- the next library.history.partitions.months-ahead months off p_future, and with
+-- library.history.partitions.retention-months > 0 it drops months older than that.
+-- Keep that retention at or above the checkpoint retention, or as-of queries lose history.
+SET @next_month = DATE_FORMAT(CURRENT_DATE + INTERVAL 1 MONTH, '%Y-%m-01');
+SET @ddl = CONCAT(
+    'ALTER TABLE book_price_history PARTITION BY RANGE COLUMNS (changed_at) (',
+    'PARTITION p', DATE_FORMAT(CURRENT_DATE, '%Y_%m'), ' VALUES LESS THAN (''', @next_month, '''), ',
+    'PARTITION p_future VALUES LESS THAN (MAXVALUE))');
+PREPARE partition_history FROM @ddl;
+EXECUTE partition_history;
+DEALLOCATE PREPARE partition_history;
+
+-- What the rotation runs, e.g. on 2027-01-01 with months-ahead=3:
+--
+-- ALTER TABLE book_price_history REORGANIZE PARTITION p_future INTO (
+--     PARTITION p2027_04 VALUES LESS THAN ('2027-05-01'),
+--     PARTITION p_future VALUES LESS THAN (MAXVALUE)
+-- );
+-- ALTER TABLE book_price_history DROP PARTITION p2026_10;   -- only with a retention
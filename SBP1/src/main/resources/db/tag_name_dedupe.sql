@@ -0,0 +1,28 @@
+-- One-off cleanup before tag.name becomes unique.
+--
+-- Concurrent book creation used to insert the same tag name twice. Hibernate (ddl-auto=update)
+-- cannot add the unique key while duplicates exist, so merge them first: every book is re-pointed
+-- to the lowest tag id of each name, then the extra rows are removed and the key is added.
+
+USE librarydb;
+
+CREATE TEMPORARY TABLE tag_keep AS
+    SELECT name, MIN(id) AS keep_id FROM tag GROUP BY name HAVING COUNT(*) > 1;
+
+-- Books tagged with both a duplicate and the kept row would collide on the join table
+DELETE bt FROM book_tag bt
+    JOIN tag t ON t.id = bt.tag_id
+    JOIN tag_keep k ON k.name = t.name AND t.id <> k.keep_id
+    JOIN book_tag kept ON kept.book_id = bt.book_id AND kept.tag_id = k.keep_id;
+
+UPDATE book_tag bt
+    JOIN tag t ON t.id = bt.tag_id
+    JOIN tag_keep k ON k.name = t.name AND t.id <> k.keep_id
+    SET bt.tag_id = k.keep_id;
+
+DELETE t FROM tag t
+    JOIN tag_keep k ON k.name = t.name AND t.id <> k.keep_id;
+
+DROP TEMPORARY TABLE tag_keep;
+
+ALTER TABLE tag ADD CONSTRAINT uk_tag_name UNIQUE (name);
@@ -0,0 +1,89 @@
+package org.example.sbp1.catalog;
+
+import org.example.sbp1.model.Author;
+import org.example.sbp1.model.Book;
+import org.example.sbp1.model.Publisher;
+import org.example.sbp1.model.Tag;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Manual heap comparison between plain {@link Book} entities and a {@link CatalogSnapshot} of the
+ * same rows. Not a unit test; run it from the test classpath with a fixed heap, e.g.
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -Xmx2g -cp target/classes:target/test-classes:$(cat target/cp.txt) \
+ *     org.example.sbp1.catalog.CatalogSnapshotHeapHarness 1000000
+ * </pre>
+ */
+public final class CatalogSnapshotHeapHarness {
+
+    private static final String[] CATEGORIES = {"Fiction", "Science", "History", "Art", "Technology"};
+
+    public static void main(String[] args) {
+        int books = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Author[] authors = new Author[1_000];
+        for (int i = 0; i < authors.length; i++) {
+            authors[i] = new Author();
+            authors[i].setId(i + 1);
+        }
+        Publisher[] publishers = new Publisher[100];
+        for (int i = 0; i < publishers.length; i++) {
+            publishers[i] = new Publisher();
+            publishers[i].setId(i + 1);
+        }
+        Tag[] tags = new Tag[50];
+        for (int i = 0; i < tags.length; i++) {
+            tags[i] = new Tag();
+            tags[i].setId(i + 1);
+        }
+
+        long baseline = usedHeap();
+        List<Book> entities = new ArrayList<>(books);
+        for (int i = 0; i < books; i++) {
+            Book book = new Book();
+            book.setId(i + 1);
+            book.setTitle("Book title number " + i);
+            book.setIsbn(String.format("%02d-%03d-%03d", i / 1_000_000 % 100, i / 1_000 % 1_000, i % 1_000));
+            book.setPrice(5 + i % 100);
+            book.setQuantity(i % 50);
+            book.setCategory(CATEGORIES[i % CATEGORIES.length]);
+            book.setAuthor(authors[i % authors.length]);
+            book.setPublisher(publishers[i % publishers.length]);
+            book.getTags().add(tags[i % tags.length]);
+            book.getTags().add(tags[(i + 1) % tags.length]);
+            entities.add(book);
+        }
+        long entityBytes = usedHeap() - baseline;
+
+        CatalogSnapshot.Builder builder = new CatalogSnapshot.Builder(books);
+        entities.forEach(builder::add);
+        CatalogSnapshot snapshot = builder.build();
+        builder = null;
+        // Give the snapshot its own copies of the strings, as when it is loaded from the database
+        entities.clear();
+        entities = null;
+        snapshot = copyStrings(snapshot);
+        long snapshotBytes = usedHeap() - baseline;
+
+        System.out.printf("books=%d entities=%d MB snapshot=%d MB (estimatedHeapBytes=%d MB)%n", books,
+                entityBytes >> 20, snapshotBytes >> 20, snapshot.estimatedHeapBytes() >> 20);
+    }
+
+    private static CatalogSnapshot copyStrings(CatalogSnapshot snapshot) {
+        CatalogSnapshot.Builder copy = new CatalogSnapshot.Builder(snapshot.size());
+        snapshot.find(new CatalogFilter(), 0, Integer.MAX_VALUE).forEach(view -> copy.add(view.getId(),
+                new String(view.getTitle()), new String(view.getIsbn()), view.getPrice(), view.getQuantity(),
+                view.getCategory(), view.getAuthorId(), view.getPublisherId()));
+        return copy.build();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
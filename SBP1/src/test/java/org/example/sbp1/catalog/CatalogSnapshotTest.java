@@ -0,0 +1,130 @@
+package org.example.sbp1.catalog;
+
+import org.example.sbp1.dto.CatalogBookView;
+import org.example.sbp1.model.Author;
+import org.example.sbp1.model.Book;
+import org.example.sbp1.model.Publisher;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogSnapshotTest {
+
+    private static final CatalogFilter ALL = new CatalogFilter();
+
+    private static Book book(int id, String isbn, double price, String category) {
+        Author author = new Author();
+        author.setId(1);
+        Publisher publisher = new Publisher();
+        publisher.setId(2);
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle("Title " + id);
+        book.setIsbn(isbn);
+        book.setPrice(price);
+        book.setQuantity(id);
+        book.setCategory(category);
+        book.setAuthor(author);
+        book.setPublisher(publisher);
+        return book;
+    }
+
+    private static CatalogSnapshot snapshot(Book... books) {
+        CatalogSnapshot.Builder builder = new CatalogSnapshot.Builder(books.length);
+        for (Book book : books) {
+            builder.add(book);
+        }
+        return builder.build();
+    }
+
+    private static List<Integer> ids(CatalogSnapshot snapshot) {
+        return snapshot.find(ALL, 0, Integer.MAX_VALUE).stream().map(CatalogBookView::getId).toList();
+    }
+
+    @Test
+    void withBooksReplacesExistingRowsInPlace() {
+        CatalogSnapshot original = snapshot(book(1, "11-111-111", 10, "Fiction"), book(5, "55-555-555", 50, "Science"));
+
+        CatalogSnapshot updated = original.withBooks(List.of(book(5, "55-555-555", 42, "Fiction")));
+
+        assertThat(ids(updated)).containsExactly(1, 5);
+        assertThat(updated.find(ALL, 1, 1).get(0).getPrice()).isEqualTo(42);
+        assertThat(updated.countByCategory("fiction")).isEqualTo(2);
+        assertThat(updated.countByCategory("Science")).isZero();
+        // Copy-on-write: readers holding the old snapshot still see the old row
+        assertThat(original.find(ALL, 1, 1).get(0).getPrice()).isEqualTo(50);
+    }
+
+    @Test
+    void withBooksMergesNewRowsInIdOrder() {
+        CatalogSnapshot original = snapshot(book(2, "22-222-222", 20, "Fiction"), book(6, "66-666-666", 60, null));
+
+        CatalogSnapshot updated = original.withBooks(List.of(
+                book(9, "99-999-999", 90, "History"),
+                book(1, "11-111-111", 10, "History"),
+                book(4, "44-444-444", 40, null),
+                book(6, "66-666-666", 61, null)));
+
+        assertThat(ids(updated)).containsExactly(1, 2, 4, 6, 9);
+        assertThat(updated.size()).isEqualTo(5);
+        assertThat(updated.find(ALL, 3, 1).get(0).getPrice()).isEqualTo(61);
+        assertThat(updated.find(ALL, 2, 1).get(0).getCategory()).isNull();
+        assertThat(updated.countByCategory("History")).isEqualTo(2);
+        assertThat(original.size()).isEqualTo(2);
+    }
+
+    @Test
+    void withBooksOnEmptySnapshot() {
+        CatalogSnapshot updated = CatalogSnapshot.empty().withBooks(List.of(book(3, "33-333-333", 30, "Art")));
+
+        assertThat(ids(updated)).containsExactly(3);
+    }
+
+    @Test
+    void withPricesUpdatesOnlyListedIds() {
+        CatalogSnapshot original = snapshot(book(1, "11-111-111", 10, "Fiction"), book(2, "22-222-222", 20, "Fiction"));
+
+        CatalogSnapshot updated = original.withPrices(Map.of(2, 2.5, 7, 70.0));
+
+        assertThat(updated.find(ALL, 0, 2)).extracting(CatalogBookView::getPrice).containsExactly(10.0, 2.5);
+        assertThat(updated.countByCategory("Fiction")).isEqualTo(2);
+        assertThat(original.find(ALL, 1, 1).get(0).getPrice()).isEqualTo(20);
+    }
+
+    @Test
+    void withoutIsbnDropsOnlyThatRow() {
+        CatalogSnapshot original = snapshot(book(1, "11-111-111", 10, "Fiction"),
+                book(2, "22-222-222", 20, "Fiction"), book(3, "33-333-333", 30, "Science"));
+
+        CatalogSnapshot updated = original.withoutIsbn("22-222-222");
+
+        assertThat(ids(updated)).containsExactly(1, 3);
+        assertThat(updated.countByCategory("Fiction")).isEqualTo(1);
+        assertThat(original.size()).isEqualTo(3);
+    }
+
+    @Test
+    void withoutUnknownIsbnReturnsSameSnapshot() {
+        CatalogSnapshot original = snapshot(book(1, "11-111-111", 10, "Fiction"));
+
+        assertThat(original.withoutIsbn("00-000-000")).isSameAs(original);
+    }
+
+    @Test
+    void isbnsArePackedAndUnpackedIncludingLeadingZeros() {
+        assertThat(CatalogSnapshot.encodeIsbn("01-002-003")).isEqualTo(1_002_003);
+        assertThat(CatalogSnapshot.decodeIsbn(1_002_003)).isEqualTo("01-002-003");
+        assertThat(CatalogSnapshot.encodeIsbn("ISBN-12345")).isEqualTo(CatalogSnapshot.RAW_ISBN);
+
+        CatalogSnapshot original = snapshot(book(1, "00-000-007", 10, "Fiction"), book(2, "legacy-isbn", 20, "Art"));
+        CatalogSnapshot copied = original.withPrices(Map.of(1, 11.0)).withBooks(List.of(book(3, "33-333-333", 30, null)));
+
+        assertThat(copied.find(ALL, 0, 3)).extracting(CatalogBookView::getIsbn)
+                .containsExactly("00-000-007", "legacy-isbn", "33-333-333");
+        assertThat(ids(copied.withoutIsbn("legacy-isbn"))).containsExactly(1, 3);
+        assertThat(ids(copied.withoutIsbn("00-000-007"))).containsExactly(2, 3);
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.sbp1.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 10, 0.2, 1.5);
+
+    /** Keeps the limiter saturated, then completes one request with the given latency. */
+    private void saturatedSample(long rttNanos) {
+        while (limiter.tryAcquire()) {
+            // fill every free permit
+        }
+        limiter.release(rttNanos);
+    }
+
+    @Test
+    void rejectsRequestsAboveTheLimit() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(10);
+
+        limiter.release(FAST);
+        assertThat(limiter.getInFlight()).isEqualTo(9);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void shrinksWhenLatencyRisesAndRecoversWhenItFalls() {
+        for (int i = 0; i < 50; i++) {
+            saturatedSample(FAST);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(10);
+
+        for (int i = 0; i < 8; i++) {
+            saturatedSample(SLOW);
+        }
+        assertThat(limiter.getLimit()).isLessThanOrEqualTo(7);
+
+        for (int i = 0; i < 100; i++) {
+            saturatedSample(FAST);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void neverDropsBelowMinimum() {
+        for (int i = 0; i < 10; i++) {
+            saturatedSample(FAST);
+        }
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 20; j++) {
+                saturatedSample(SLOW << (i + 1));
+            }
+        }
+        assertThat(limiter.getLimit()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void ignoresSlowSamplesWhenApplicationLimited() {
+        for (int i = 0; i < 20; i++) {
+            limiter.tryAcquire();
+            limiter.release(i < 10 ? FAST : SLOW * 10);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+}
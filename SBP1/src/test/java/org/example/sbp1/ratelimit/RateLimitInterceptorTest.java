@@ -0,0 +1,198 @@
+package org.example.sbp1.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitInterceptorTest {
+
+    @RateLimited("bulk")
+    static class BulkController {
+        public void rewrite() {
+        }
+
+        @RateLimited("scan")
+        public void search() {
+        }
+    }
+
+    static class PlainController {
+        public void get() {
+        }
+    }
+
+    private final RateLimitProperties properties = new RateLimitProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 0.2, 1.5);
+
+    RateLimitInterceptorTest() {
+        // Slow refill so no token comes back while a test runs
+        properties.getPolicies().put("default", policy(1, 1000));
+        properties.getConcurrency().setEnabled(false);
+    }
+
+    private static RateLimitProperties.Policy policy(double clientBurst, double endpointBurst) {
+        RateLimitProperties.Policy policy = new RateLimitProperties.Policy();
+        policy.setClientPermitsPerSecond(0.01);
+        policy.setClientBurst(clientBurst);
+        policy.setEndpointPermitsPerSecond(0.01);
+        policy.setEndpointBurst(endpointBurst);
+        return policy;
+    }
+
+    private RateLimitInterceptor interceptor() {
+        return new RateLimitInterceptor(properties, meterRegistry, limiter);
+    }
+
+    private static HandlerMethod handler(Object controller, String method) throws NoSuchMethodException {
+        return new HandlerMethod(controller, method);
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr, String... forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/books/{id}");
+        request.setRemoteAddr(remoteAddr);
+        for (String hop : forwardedFor) {
+            request.addHeader("X-Forwarded-For", hop);
+        }
+        return request;
+    }
+
+    private double rejected(String reason, String policy) {
+        Counter counter = meterRegistry.find("library.ratelimit.rejected")
+                .tag("reason", reason).tag("policy", policy).counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    @Test
+    void emptyClientBucketAnswers429WithRetryAfter() throws Exception {
+        RateLimitInterceptor interceptor = interceptor();
+        HandlerMethod handler = handler(new PlainController(), "get");
+
+        assertThat(interceptor.preHandle(request("10.0.0.1"), new MockHttpServletResponse(), handler)).isTrue();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(request("10.0.0.1"), response, handler)).isFalse();
+
+        assertThat(response.getStatus()).isEqualTo(429);
+        // One token at 0.01/s is 100 s away
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("100");
+        assertThat(rejected("client", "default")).isEqualTo(1);
+        // Another client still has its own bucket
+        assertThat(interceptor.preHandle(request("10.0.0.2"), new MockHttpServletResponse(), handler)).isTrue();
+    }
+
+    @Test
+    void emptyEndpointBucketAnswers429ForEveryClient() throws Exception {
+        properties.getPolicies().put("default", policy(10, 2));
+        RateLimitInterceptor interceptor = interceptor();
+        HandlerMethod handler = handler(new PlainController(), "get");
+
+        assertThat(interceptor.preHandle(request("10.0.0.1"), new MockHttpServletResponse(), handler)).isTrue();
+        assertThat(interceptor.preHandle(request("10.0.0.2"), new MockHttpServletResponse(), handler)).isTrue();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(request("10.0.0.3"), response, handler)).isFalse();
+
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(rejected("endpoint", "default")).isEqualTo(1);
+        assertThat(rejected("client", "default")).isZero();
+    }
+
+    @Test
+    void fullConcurrencyLimitAnswers503WithRetryAfterFromObservedLatency() throws Exception {
+        properties.getConcurrency().setEnabled(true);
+        properties.getPolicies().put("default", policy(10, 10));
+        limiter.tryAcquire();
+        limiter.release(TimeUnit.SECONDS.toNanos(3));
+        RateLimitInterceptor interceptor = interceptor();
+        HandlerMethod handler = handler(new PlainController(), "get");
+
+        MockHttpServletRequest admitted = request("10.0.0.1");
+        assertThat(interceptor.preHandle(admitted, new MockHttpServletResponse(), handler)).isTrue();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(request("10.0.0.2"), response, handler)).isFalse();
+
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("3");
+        assertThat(rejected("concurrency", "default")).isEqualTo(1);
+
+        interceptor.afterCompletion(admitted, new MockHttpServletResponse(), handler, null);
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(interceptor.preHandle(request("10.0.0.2"), new MockHttpServletResponse(), handler)).isTrue();
+    }
+
+    @Test
+    void clientsBeyondTheCapShareAnOverflowBucket() throws Exception {
+        properties.setMaxTrackedClients(1);
+        RateLimitInterceptor interceptor = interceptor();
+        HandlerMethod handler = handler(new PlainController(), "get");
+
+        assertThat(interceptor.preHandle(request("10.0.0.1"), new MockHttpServletResponse(), handler)).isTrue();
+        assertThat(interceptor.preHandle(request("10.0.0.2"), new MockHttpServletResponse(), handler)).isTrue();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(request("10.0.0.3"), response, handler)).isFalse();
+
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(meterRegistry.get("library.ratelimit.tracked.clients").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void policyComesFromMethodThenClassThenDefault() throws Exception {
+        properties.getPolicies().put("scan", policy(1, 1000));
+        properties.getPolicies().put("bulk", policy(1, 1000));
+        RateLimitInterceptor interceptor = interceptor();
+        HandlerMethod search = handler(new BulkController(), "search");
+        HandlerMethod rewrite = handler(new BulkController(), "rewrite");
+        HandlerMethod get = handler(new PlainController(), "get");
+
+        for (HandlerMethod handler : new HandlerMethod[]{search, rewrite, get}) {
+            MockHttpServletRequest first = request("10.0.0.1");
+            first.setRequestURI("/" + handler.getMethod().getName());
+            first.removeAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            assertThat(interceptor.preHandle(first, new MockHttpServletResponse(), handler)).isTrue();
+            MockHttpServletRequest second = request("10.0.0.1");
+            second.setRequestURI("/" + handler.getMethod().getName());
+            second.removeAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            assertThat(interceptor.preHandle(second, new MockHttpServletResponse(), handler)).isFalse();
+        }
+
+        assertThat(rejected("client", "scan")).isEqualTo(1);
+        assertThat(rejected("client", "bulk")).isEqualTo(1);
+        assertThat(rejected("client", "default")).isEqualTo(1);
+    }
+
+    @Test
+    void clientIdIsTheHopAppendedByTheTrustedProxy() throws Exception {
+        properties.setTrustedProxyHops(1);
+        RateLimitInterceptor interceptor = interceptor();
+        HandlerMethod handler = handler(new PlainController(), "get");
+
+        // Same real client behind the proxy, different spoofed left-most entries
+        assertThat(interceptor.preHandle(request("172.16.0.1", "1.1.1.1, 203.0.113.7"),
+                new MockHttpServletResponse(), handler)).isTrue();
+        assertThat(interceptor.preHandle(request("172.16.0.1", "2.2.2.2", "203.0.113.7"),
+                new MockHttpServletResponse(), handler)).isFalse();
+        // A different real client through the same proxy
+        assertThat(interceptor.preHandle(request("172.16.0.1", "1.1.1.1, 203.0.113.8"),
+                new MockHttpServletResponse(), handler)).isTrue();
+    }
+
+    @Test
+    void forwardedForIsIgnoredWithoutTrustedProxies() throws Exception {
+        RateLimitInterceptor interceptor = interceptor();
+        HandlerMethod handler = handler(new PlainController(), "get");
+
+        assertThat(interceptor.preHandle(request("172.16.0.1", "203.0.113.7"),
+                new MockHttpServletResponse(), handler)).isTrue();
+        assertThat(interceptor.preHandle(request("172.16.0.1", "203.0.113.8"),
+                new MockHttpServletResponse(), handler)).isFalse();
+    }
+}
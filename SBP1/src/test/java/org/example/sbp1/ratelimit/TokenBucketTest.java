@@ -0,0 +1,73 @@
+package org.example.sbp1.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private void advance(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Test
+    void startsFullAndRejectsOnceBurstIsSpent() {
+        TokenBucket bucket = new TokenBucket(2, 2, clock::get);
+
+        assertThat(bucket.isFull()).isTrue();
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void refillsContinuouslyAtConfiguredRate() {
+        TokenBucket bucket = new TokenBucket(2, 2, clock::get);
+        bucket.tryAcquire();
+        bucket.tryAcquire();
+
+        advance(400);
+        assertThat(bucket.tryAcquire()).isFalse();
+        advance(100);
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void refillIsCappedAtCapacity() {
+        TokenBucket bucket = new TokenBucket(2, 2, clock::get);
+        bucket.tryAcquire();
+
+        advance(TimeUnit.HOURS.toMillis(1));
+        assertThat(bucket.isFull()).isTrue();
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void retryAfterRoundsUpToTheNextToken() {
+        TokenBucket bucket = new TokenBucket(0.1, 1, clock::get);
+        assertThat(bucket.secondsUntilNextToken()).isZero();
+
+        bucket.tryAcquire();
+        assertThat(bucket.secondsUntilNextToken()).isEqualTo(10);
+        advance(4_500);
+        assertThat(bucket.secondsUntilNextToken()).isEqualTo(6);
+        advance(5_500);
+        assertThat(bucket.secondsUntilNextToken()).isZero();
+    }
+
+    @Test
+    void retryAfterIsAtLeastOneSecondForFastBuckets() {
+        TokenBucket bucket = new TokenBucket(100, 1, clock::get);
+        bucket.tryAcquire();
+
+        assertThat(bucket.secondsUntilNextToken()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.sbp1.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookSpecificationsTest {
+
+    @Test
+    void defaultsToIdAscending() {
+        assertThat(BookSpecifications.parseSort(null)).isEqualTo(Sort.by(Sort.Order.asc("id")));
+        assertThat(BookSpecifications.parseSort("  ")).isEqualTo(Sort.by(Sort.Order.asc("id")));
+    }
+
+    @Test
+    void parsesDirectionsAndAppendsIdTieBreak() {
+        assertThat(BookSpecifications.parseSort("-price, title"))
+                .containsExactly(Sort.Order.desc("price"), Sort.Order.asc("title"), Sort.Order.asc("id"));
+    }
+
+    @Test
+    void keepsExplicitIdWithoutDuplicating() {
+        assertThat(BookSpecifications.parseSort("category,-id"))
+                .containsExactly(Sort.Order.asc("category"), Sort.Order.desc("id"));
+    }
+
+    @Test
+    void rejectsUnknownKeys() {
+        assertThatThrownBy(() -> BookSpecifications.parseSort("price,quantity"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("quantity");
+        assertThatThrownBy(() -> BookSpecifications.parseSort("price,,title"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void escapesLikeWildcardsInContainsPatterns() {
+        assertThat(BookSpecifications.containsPattern("war")).isEqualTo("%WAR%");
+        assertThat(BookSpecifications.containsPattern("50%_off")).isEqualTo("%50\\%\\_OFF%");
+        assertThat(BookSpecifications.containsPattern("a\\b")).isEqualTo("%A\\\\B%");
+    }
+}
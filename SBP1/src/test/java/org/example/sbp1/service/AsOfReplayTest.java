@@ -0,0 +1,84 @@
+package org.example.sbp1.service;
+
+import org.example.sbp1.dto.BookAsOfPage;
+import org.example.sbp1.dto.BookAsOfView;
+import org.example.sbp1.model.BookPriceHistory.ChangeType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsOfReplayTest {
+
+    private static BookAsOfView row(int id, double price, int quantity) {
+        return new BookAsOfView(id, "isbn-" + id, price, quantity);
+    }
+
+    @Test
+    void undoesChangesNewestFirstDownToTheOldestPreviousValues() {
+        AsOfReplay replay = new AsOfReplay(List.of(row(1, 30, 3)), 10, false);
+
+        replay.undo(1, "isbn-1", ChangeType.ROLLBACK, 20, 2);
+        replay.undo(1, "isbn-1", ChangeType.REPRICE, 10, 1);
+
+        assertThat(replay.page().getContent()).containsExactly(row(1, 10, 1));
+    }
+
+    @Test
+    void undoingACreateRemovesTheBook() {
+        AsOfReplay replay = new AsOfReplay(List.of(row(1, 10, 1), row(2, 20, 2)), 10, false);
+
+        replay.undo(2, "isbn-2", ChangeType.REPRICE, 15, 2);
+        replay.undo(2, "isbn-2", ChangeType.CREATE, 0, 0);
+
+        assertThat(replay.page().getContent()).containsExactly(row(1, 10, 1));
+    }
+
+    @Test
+    void undoingADeleteRestoresTheBookInIdOrder() {
+        AsOfReplay replay = new AsOfReplay(List.of(row(1, 10, 1), row(4, 40, 4)), 10, false);
+
+        replay.undo(3, "isbn-3", ChangeType.DELETE, 33, 3);
+        // An older price change of the deleted book is undone on the restored row
+        replay.undo(3, "isbn-3", ChangeType.REPRICE, 30, 3);
+
+        assertThat(replay.page().getContent()).containsExactly(row(1, 10, 1), row(3, 30, 3), row(4, 40, 4));
+    }
+
+    @Test
+    void fullPageHasNextAndEndsAtItsLastBaseId() {
+        AsOfReplay replay = new AsOfReplay(List.of(row(5, 50, 5), row(8, 80, 8)), 2, false);
+        assertThat(replay.lastId()).isEqualTo(8);
+
+        // A book deleted since the timestamp inside the range makes the page longer than size
+        replay.undo(6, "isbn-6", ChangeType.DELETE, 60, 6);
+
+        BookAsOfPage page = replay.page();
+        assertThat(page.getContent()).extracting(BookAsOfView::getBookId).containsExactly(5, 6, 8);
+        assertThat(page.isHasNext()).isTrue();
+        assertThat(page.getNextAfterId()).isEqualTo(8);
+    }
+
+    @Test
+    void partialPageIsTheLastAndCoversEveryLaterId() {
+        AsOfReplay replay = new AsOfReplay(List.of(row(5, 50, 5)), 2, false);
+        assertThat(replay.lastId()).isEqualTo(Integer.MAX_VALUE);
+
+        replay.undo(9, "isbn-9", ChangeType.DELETE, 90, 9);
+
+        BookAsOfPage page = replay.page();
+        assertThat(page.getContent()).extracting(BookAsOfView::getBookId).containsExactly(5, 9);
+        assertThat(page.isHasNext()).isFalse();
+        assertThat(page.getNextAfterId()).isNull();
+    }
+
+    @Test
+    void singleBookLookupNeverHasANextPage() {
+        AsOfReplay replay = new AsOfReplay(List.of(row(7, 70, 7)), 1, true);
+
+        BookAsOfPage page = replay.page();
+        assertThat(page.isHasNext()).isFalse();
+        assertThat(page.getNextAfterId()).isNull();
+    }
+}
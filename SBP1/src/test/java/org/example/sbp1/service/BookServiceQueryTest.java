@@ -0,0 +1,166 @@
+package org.example.sbp1.service;
+
+import org.example.sbp1.dto.BookQueryRequest;
+import org.example.sbp1.dto.BookQueryResponse;
+import org.example.sbp1.model.Author;
+import org.example.sbp1.model.Book;
+import org.example.sbp1.model.Publisher;
+import org.example.sbp1.model.Tag;
+import org.example.sbp1.repository.AuthorRepository;
+import org.example.sbp1.repository.BookRepository;
+import org.example.sbp1.repository.PublisherRepository;
+import org.example.sbp1.repository.TagRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs /api/books/query against the configured database. Every test works on its own category
+ * and rolls back, so rows already in the database do not interfere.
+ */
+@SpringBootTest
+@Transactional
+class BookServiceQueryTest {
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private PublisherRepository publisherRepository;
+    @Autowired
+    private TagRepository tagRepository;
+
+    private String marker;
+    private Author author;
+    private Publisher publisher;
+    private Tag tag;
+
+    @BeforeEach
+    void createFixtures() {
+        marker = "qt" + System.nanoTime();
+        author = new Author();
+        author.setName("Author " + marker);
+        author.setEmail(marker + "@test.local");
+        author = authorRepository.save(author);
+        publisher = new Publisher();
+        publisher.setName("Publisher " + marker);
+        publisher.setAdress("street");
+        publisher = publisherRepository.save(publisher);
+        tag = new Tag();
+        tag.setName("tag-" + marker);
+        tag = tagRepository.save(tag);
+    }
+
+    private Book book(String title, double price, int quantity, boolean tagged) {
+        Book book = new Book();
+        book.setTitle(title + " " + marker);
+        book.setIsbn(String.format("%02d-%03d-%03d", ThreadLocalRandom.current().nextInt(100),
+                ThreadLocalRandom.current().nextInt(1000), ThreadLocalRandom.current().nextInt(1000)));
+        book.setPrice(price);
+        book.setQuantity(quantity);
+        book.setCategory(marker);
+        book.setAuthor(author);
+        book.setPublisher(publisher);
+        if (tagged) {
+            book.getTags().add(tag);
+        }
+        return bookRepository.save(book);
+    }
+
+    private BookQueryRequest inCategory() {
+        BookQueryRequest request = new BookQueryRequest();
+        request.setCategory(marker);
+        return request;
+    }
+
+    @Test
+    void filtersCombineAndMatchWildcardsLiterally() {
+        Book discount = book("Sale 50% off", 10, 0, true);
+        Book plain = book("Sale x 500 off", 20, 5, true);
+        Book untagged = book("Sale_x", 30, 5, false);
+
+        BookQueryRequest title = inCategory();
+        title.setTitle("50%");
+        assertThat(bookService.query(title).getContent()).containsExactly(discount);
+
+        BookQueryRequest underscore = inCategory();
+        underscore.setTitle("e_x");
+        assertThat(bookService.query(underscore).getContent()).containsExactly(untagged);
+
+        BookQueryRequest combined = inCategory();
+        combined.setAuthorName(marker.toUpperCase());
+        combined.setMinPrice(15.0);
+        combined.setMaxPrice(25.0);
+        combined.setInStock(true);
+        combined.setTag(tag.getName());
+        assertThat(bookService.query(combined).getContent()).containsExactly(plain);
+
+        BookQueryRequest tagged = inCategory();
+        tagged.setTag(tag.getName());
+        tagged.setSort("-price");
+        assertThat(bookService.query(tagged).getContent()).containsExactly(plain, discount);
+    }
+
+    @Test
+    void rejectsPagesWhoseOffsetOverflows() {
+        BookQueryRequest request = inCategory();
+        request.setPage(Integer.MAX_VALUE / 50);
+        request.setSize(100);
+
+        assertThatThrownBy(() -> bookService.query(request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("too large");
+    }
+
+    @Test
+    void countsExactlyPastTheEnd() {
+        book("One", 1, 1, false);
+        book("Two", 2, 1, false);
+        book("Three", 3, 1, false);
+        BookQueryRequest request = inCategory();
+        request.setPage(5);
+        request.setSize(2);
+
+        BookQueryResponse response = bookService.query(request);
+
+        assertThat(response.getContent()).isEmpty();
+        assertThat(response.isHasNext()).isFalse();
+        assertThat(response.getTotalElements()).isEqualTo(3);
+        assertThat(response.isTotalExact()).isTrue();
+    }
+
+    @Test
+    void totalIsALowerBoundUnlessAnExactCountIsRequested() {
+        book("One", 1, 1, false);
+        book("Two", 2, 1, false);
+        book("Three", 3, 1, false);
+        BookQueryRequest request = inCategory();
+        request.setSize(1);
+
+        BookQueryResponse estimate = bookService.query(request);
+        assertThat(estimate.isHasNext()).isTrue();
+        assertThat(estimate.getTotalElements()).isEqualTo(2);
+        assertThat(estimate.isTotalExact()).isFalse();
+
+        request.setExactCount(true);
+        BookQueryResponse exact = bookService.query(request);
+        assertThat(exact.getTotalElements()).isEqualTo(3);
+        assertThat(exact.isTotalExact()).isTrue();
+
+        request.setExactCount(false);
+        request.setPage(2);
+        BookQueryResponse last = bookService.query(request);
+        assertThat(last.getTotalElements()).isEqualTo(3);
+        assertThat(last.isTotalExact()).isTrue();
+    }
+}
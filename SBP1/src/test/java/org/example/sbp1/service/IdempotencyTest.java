@@ -0,0 +1,185 @@
+package org.example.sbp1.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.sbp1.dto.CreateBookRequest;
+import org.example.sbp1.model.Author;
+import org.example.sbp1.model.Publisher;
+import org.example.sbp1.repository.AuthorRepository;
+import org.example.sbp1.repository.PublisherRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Idempotent book creation through the API, against the configured database. Not transactional:
+ * createBook commits in its own transactions, so the fixtures are deleted afterwards.
+ */
+@SpringBootTest(properties = "library.rate-limit.enabled=false")
+@AutoConfigureMockMvc
+class IdempotencyTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private IdempotencyService idempotencyService;
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private PublisherRepository publisherRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String marker;
+    private Author author;
+    private Publisher publisher;
+
+    @BeforeEach
+    void createFixtures() {
+        marker = "id" + System.nanoTime();
+        author = new Author();
+        author.setName("Author " + marker);
+        author.setEmail(marker + "@test.local");
+        author = authorRepository.save(author);
+        publisher = new Publisher();
+        publisher.setName("Publisher " + marker);
+        publisher.setAdress("street");
+        publisher = publisherRepository.save(publisher);
+    }
+
+    @AfterEach
+    void deleteFixtures() {
+        jdbcTemplate.update("DELETE bt FROM book_tag bt JOIN books b ON b.id = bt.book_id WHERE b.author_id = ?",
+                author.getId());
+        jdbcTemplate.update("DELETE FROM books WHERE author_id = ?", author.getId());
+        jdbcTemplate.update("DELETE FROM author WHERE id = ?", author.getId());
+        jdbcTemplate.update("DELETE FROM publisher WHERE id = ?", publisher.getId());
+        jdbcTemplate.update("DELETE FROM tag WHERE name LIKE ?", marker + "%");
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE idempotency_key LIKE ?", marker + "%");
+    }
+
+    private CreateBookRequest request(String... tagNames) {
+        CreateBookRequest request = new CreateBookRequest();
+        request.setTitle("Idempotency test");
+        request.setCategory("test");
+        request.setIsbn(String.format("%02d-%03d-%03d", ThreadLocalRandom.current().nextInt(100),
+                ThreadLocalRandom.current().nextInt(1000), ThreadLocalRandom.current().nextInt(1000)));
+        request.setPrice(10);
+        request.setQuantity(1);
+        request.setAuthorId((long) author.getId());
+        request.setPublisherId((long) publisher.getId());
+        request.setTagNames(Arrays.asList(tagNames));
+        return request;
+    }
+
+    private ResultActions create(CreateBookRequest request, String key) throws Exception {
+        return mockMvc.perform(post("/api/books/createBook")
+                .header("Idempotency-Key", marker + key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)));
+    }
+
+    private JsonNode created(CreateBookRequest request, String key) throws Exception {
+        String body = create(request, key).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    @Test
+    void replayReturnsTheStoredBook() throws Exception {
+        CreateBookRequest request = request(marker + "a");
+
+        JsonNode first = created(request, "k1");
+        JsonNode replayed = created(request, "k1");
+
+        assertThat(replayed.get("id").asLong()).isEqualTo(first.get("id").asLong());
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books WHERE isbn = ?", Integer.class,
+                request.getIsbn())).isEqualTo(1);
+    }
+
+    @Test
+    void sameKeyWithAnotherBodyIsRejected() throws Exception {
+        CreateBookRequest request = request();
+        created(request, "k1");
+
+        request.setPrice(11);
+        create(request, "k1").andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void duplicateIsbnUnderAnotherKeyConflicts() throws Exception {
+        CreateBookRequest request = request();
+        created(request, "k1");
+
+        create(request, "k2").andExpect(status().isConflict());
+    }
+
+    @Test
+    void replayAfterTheBookWasDeletedIsGone() throws Exception {
+        CreateBookRequest request = request();
+        created(request, "k1");
+        mockMvc.perform(delete("/api/books/DeleteBook/{isbn}", request.getIsbn())).andExpect(status().is2xxSuccessful());
+
+        create(request, "k1").andExpect(status().isGone());
+    }
+
+    @Test
+    void expiredKeysArePurgedAndTheRetryHitsTheUniqueIsbn() throws Exception {
+        CreateBookRequest request = request();
+        created(request, "k1");
+        jdbcTemplate.update("UPDATE idempotency_keys SET created_at = NOW() - INTERVAL 30 DAY WHERE idempotency_key = ?",
+                marker + "k1");
+
+        idempotencyService.purgeExpired();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotency_keys WHERE idempotency_key = ?",
+                Integer.class, marker + "k1")).isZero();
+        create(request, "k1").andExpect(status().isConflict());
+    }
+
+    @Test
+    void tagNamesAreTrimmedDedupedAndBlanksDropped() throws Exception {
+        String tag = marker + "t";
+        JsonNode book = created(request(" " + tag + " ", "", tag, null, "  "), "k1");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM book_tag WHERE book_id = ?", Integer.class,
+                book.get("id").asLong())).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tag WHERE name = ?", Integer.class, tag))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void overlongTagNameIsABadRequest() throws Exception {
+        create(request(marker + "x".repeat(256)), "k1").andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void fingerprintIgnoresTagOrderAndFormatting() {
+        CreateBookRequest ordered = request("a", "b");
+        CreateBookRequest shuffled = request("b", " a ", "");
+        shuffled.setIsbn(ordered.getIsbn());
+
+        assertThat(idempotencyService.fingerprint(shuffled, BookService.normalizeTagNames(shuffled.getTagNames())))
+                .isEqualTo(idempotencyService.fingerprint(ordered, BookService.normalizeTagNames(ordered.getTagNames())));
+        ordered.setQuantity(2);
+        assertThat(idempotencyService.fingerprint(shuffled, BookService.normalizeTagNames(shuffled.getTagNames())))
+                .isNotEqualTo(idempotencyService.fingerprint(ordered, BookService.normalizeTagNames(ordered.getTagNames())));
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.sbp1.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceHistoryPartitionsTest {
+
+    private static final YearMonth OCT_2026 = YearMonth.of(2026, 10);
+
+    @Test
+    void parsesMonthlyPartitionNamesOnly() {
+        assertThat(PriceHistoryPartitions.months(List.of("p_future", "p2026_11", "p2026_10", "p_legacy")))
+                .containsExactly(YearMonth.of(2026, 10), YearMonth.of(2026, 11));
+    }
+
+    @Test
+    void addsMonthsAfterTheNewestPartitionUpToTheHorizon() {
+        assertThat(PriceHistoryPartitions.monthsToAdd(List.of(OCT_2026), OCT_2026, 3))
+                .containsExactly(YearMonth.of(2026, 11), YearMonth.of(2026, 12), YearMonth.of(2027, 1));
+        assertThat(PriceHistoryPartitions.monthsToAdd(List.of(OCT_2026, YearMonth.of(2027, 1)), OCT_2026, 3))
+                .isEmpty();
+        // Rotation missed for a while: the gap is filled from the newest partition on
+        assertThat(PriceHistoryPartitions.monthsToAdd(List.of(YearMonth.of(2026, 8)), OCT_2026, 1))
+                .containsExactly(YearMonth.of(2026, 9), OCT_2026, YearMonth.of(2026, 11));
+    }
+
+    @Test
+    void dropsMonthsOlderThanTheRetentionButNeverTheNewestPartition() {
+        List<YearMonth> existing = List.of(YearMonth.of(2026, 6), YearMonth.of(2026, 7), YearMonth.of(2026, 8));
+
+        assertThat(PriceHistoryPartitions.monthsToDrop(existing, OCT_2026, 3)).containsExactly(YearMonth.of(2026, 6));
+        assertThat(PriceHistoryPartitions.monthsToDrop(existing, OCT_2026, 1))
+                .containsExactly(YearMonth.of(2026, 6), YearMonth.of(2026, 7));
+    }
+
+    @Test
+    void splitsTheCatchAllPartition() {
+        assertThat(PriceHistoryPartitions.reorganizeSql(List.of(YearMonth.of(2026, 12), YearMonth.of(2027, 1))))
+                .isEqualTo("ALTER TABLE book_price_history REORGANIZE PARTITION p_future INTO ("
+                        + "PARTITION p2026_12 VALUES LESS THAN ('2027-01-01'), "
+                        + "PARTITION p2027_01 VALUES LESS THAN ('2027-02-01'), "
+                        + "PARTITION p_future VALUES LESS THAN (MAXVALUE))");
+    }
+}
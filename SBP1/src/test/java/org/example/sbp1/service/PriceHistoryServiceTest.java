@@ -0,0 +1,182 @@
+package org.example.sbp1.service;
+
+import jakarta.persistence.EntityManager;
+import org.example.sbp1.dto.BookAsOfPage;
+import org.example.sbp1.dto.BookAsOfView;
+import org.example.sbp1.dto.PriceRunResponse;
+import org.example.sbp1.model.Author;
+import org.example.sbp1.model.Book;
+import org.example.sbp1.model.BookPriceHistory;
+import org.example.sbp1.model.BookPriceHistory.ChangeType;
+import org.example.sbp1.model.Publisher;
+import org.example.sbp1.repository.AuthorRepository;
+import org.example.sbp1.repository.BookRepository;
+import org.example.sbp1.repository.PublisherRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Price history against the configured database, inside a transaction that is rolled back.
+ * Books are looked up by ISBN so rows already in the database do not interfere.
+ */
+@SpringBootTest
+@Transactional
+class PriceHistoryServiceTest {
+
+    @Autowired
+    private PriceHistoryService priceHistoryService;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private PublisherRepository publisherRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManager entityManager;
+
+    private Author author;
+    private Publisher publisher;
+
+    @BeforeEach
+    void createFixtures() {
+        String marker = "ht" + System.nanoTime();
+        author = new Author();
+        author.setName("Author " + marker);
+        author.setEmail(marker + "@test.local");
+        author = authorRepository.save(author);
+        publisher = new Publisher();
+        publisher.setName("Publisher " + marker);
+        publisher.setAdress("street");
+        publisher = publisherRepository.save(publisher);
+    }
+
+    private Book createBook(double price) {
+        Book book = new Book();
+        book.setTitle("History test");
+        book.setIsbn(String.format("%02d-%03d-%03d", ThreadLocalRandom.current().nextInt(100),
+                ThreadLocalRandom.current().nextInt(1000), ThreadLocalRandom.current().nextInt(1000)));
+        book.setPrice(price);
+        book.setQuantity(1);
+        book.setAuthor(author);
+        book.setPublisher(publisher);
+        Book saved = bookRepository.saveAndFlush(book);
+        priceHistoryService.recordCreate(saved);
+        return saved;
+    }
+
+    /** Sets the new prices and records them as one run, the way a repricing does. */
+    private String reprice(List<Book> books, double newPrice) {
+        String runId = UUID.randomUUID().toString();
+        double[] previous = new double[books.size()];
+        for (int i = 0; i < books.size(); i++) {
+            previous[i] = books.get(i).getPrice();
+            books.get(i).setPrice(newPrice);
+        }
+        bookRepository.saveAllAndFlush(books);
+        priceHistoryService.recordPriceChanges(books, previous, ChangeType.REPRICE, runId);
+        return runId;
+    }
+
+    private double priceOf(Book book) {
+        return jdbcTemplate.queryForObject("SELECT price FROM books WHERE id = ?", Double.class, book.getId());
+    }
+
+    private List<BookAsOfView> asOf(Instant timestamp, Book book) {
+        return priceHistoryService.catalogAsOf(timestamp, book.getIsbn(), 0, 1).getContent();
+    }
+
+    /** Separates consecutive steps by more than the column's microsecond precision. */
+    private static Instant pause() throws InterruptedException {
+        Thread.sleep(5);
+        Instant now = Instant.now();
+        Thread.sleep(5);
+        return now;
+    }
+
+    @Test
+    void rollbackRestoresOnlyBooksTheRunStillOwns() {
+        Book first = createBook(10);
+        Book repricedAgain = createBook(10);
+        Book third = createBook(10);
+        String runId = reprice(List.of(first, repricedAgain, third), 20);
+        reprice(List.of(repricedAgain), 25);
+
+        PriceRunResponse response = bookService.rollbackRun(runId);
+
+        assertThat(response.getBooksUpdated()).isEqualTo(2);
+        assertThat(response.getBooksSkipped()).isEqualTo(1);
+        entityManager.clear();
+        assertThat(priceOf(first)).isEqualTo(10);
+        assertThat(priceOf(repricedAgain)).isEqualTo(25);
+        assertThat(priceOf(third)).isEqualTo(10);
+        List<BookPriceHistory> history = priceHistoryService.historyOf(first.getIsbn());
+        assertThat(history).extracting(BookPriceHistory::getChangeType)
+                .containsExactly(ChangeType.CREATE, ChangeType.REPRICE, ChangeType.ROLLBACK);
+        assertThat(history.get(2).getRunId()).isEqualTo(response.getRunId());
+        assertThat(history.get(2).getPreviousPrice()).isEqualTo(20);
+    }
+
+    @Test
+    void asOfUndoesHistoryFromTheNextCheckpointOrTheLiveTable() throws InterruptedException {
+        Book book = createBook(10);
+        Book deleted = createBook(7);
+        Instant beforeRun = pause();
+        reprice(List.of(book), 20);
+        Instant afterRun = pause();
+        priceHistoryService.writeCheckpoint();
+        Instant afterCheckpoint = pause();
+        reprice(List.of(book), 30);
+        bookService.deleteBook(deleted.getIsbn());
+        bookRepository.flush();
+
+        // Checkpoint base (20), run undone
+        assertThat(asOf(beforeRun, book)).extracting(BookAsOfView::getPrice).containsExactly(10.0);
+        // Checkpoint base as is: the change to 30 came after it
+        assertThat(asOf(afterRun, book)).extracting(BookAsOfView::getPrice).containsExactly(20.0);
+        // No later checkpoint: live base (30), later change undone
+        assertThat(asOf(afterCheckpoint, book)).extracting(BookAsOfView::getPrice).containsExactly(20.0);
+        assertThat(asOf(Instant.now(), book)).extracting(BookAsOfView::getPrice).containsExactly(30.0);
+
+        // Deleted after the checkpoint: in the checkpoint, restored from the DELETE row on the live table
+        assertThat(asOf(beforeRun, deleted)).extracting(BookAsOfView::getPrice).containsExactly(7.0);
+        assertThat(asOf(afterCheckpoint, deleted)).extracting(BookAsOfView::getPrice).containsExactly(7.0);
+        assertThat(asOf(Instant.now(), deleted)).isEmpty();
+        // Created after the timestamp
+        assertThat(asOf(beforeRun.minusSeconds(60), book)).isEmpty();
+    }
+
+    @Test
+    void asOfPagesThroughTheCheckpointById() throws InterruptedException {
+        Book first = createBook(10);
+        Book second = createBook(10);
+        Instant beforeRun = pause();
+        reprice(List.of(first, second), 20);
+        priceHistoryService.writeCheckpoint();
+
+        BookAsOfPage page = priceHistoryService.catalogAsOf(beforeRun, null, first.getId() - 1, 1);
+        assertThat(page.getContent()).extracting(BookAsOfView::getBookId, BookAsOfView::getPrice)
+                .containsExactly(tuple(first.getId(), 10.0));
+        assertThat(page.isHasNext()).isTrue();
+        assertThat(page.getNextAfterId()).isEqualTo(first.getId());
+
+        BookAsOfPage next = priceHistoryService.catalogAsOf(beforeRun, null, page.getNextAfterId(), 1);
+        assertThat(next.getContent()).extracting(BookAsOfView::getBookId, BookAsOfView::getPrice)
+                .containsExactly(tuple(second.getId(), 10.0));
+    }
+}
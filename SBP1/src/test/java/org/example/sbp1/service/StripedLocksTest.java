@@ -0,0 +1,56 @@
+package org.example.sbp1.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedLocksTest {
+
+    private final StripedLocks locks = new StripedLocks(64);
+
+    @Test
+    void sameKeyAlwaysMapsToSameLock() {
+        assertThat(locks.get("12-345-678")).isSameAs(locks.get(new String("12-345-678")));
+    }
+
+    @Test
+    void keysSpreadAcrossAllStripes() {
+        Set<Lock> used = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < 10_000; i++) {
+            used.add(locks.get(String.format("%02d-%03d-%03d", i % 100, i / 100, i % 1000)));
+        }
+        assertThat(used).hasSize(64);
+    }
+
+    @Test
+    void serializesHoldersOfTheSameKey() throws InterruptedException {
+        Lock held = locks.get("12-345-678");
+        held.lock();
+        AtomicBoolean acquired = new AtomicBoolean();
+        CountDownLatch attempted = new CountDownLatch(1);
+        Thread other = new Thread(() -> {
+            Lock lock = locks.get("12-345-678");
+            acquired.set(lock.tryLock());
+            if (acquired.get()) {
+                lock.unlock();
+            }
+            attempted.countDown();
+        });
+        try {
+            other.start();
+            assertThat(attempted.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(acquired).isFalse();
+        } finally {
+            held.unlock();
+        }
+        other.join();
+    }
+}
@@ -0,0 +1,59 @@
+#!/usr/bin/env bash
+# Turns Gatling reports into diffable summaries.
+#
+#   ./report.sh summarize [report-dir]          -> TSV on stdout (default: latest report in target/gatling)
+#   ./report.sh compare <baseline> <candidate>  -> side-by-side deltas; each arg is a report dir or a saved TSV
+#
+# Columns: request, count, ko, rps, p50, p75, p95, p99, max (ms; Gatling's default percentiles 50/75/95/99).
+# Keep the summarize output of a build (e.g. baselines/<commit>.tsv) and compare later builds against it.
+set -euo pipefail
+
+command -v jq >/dev/null || { echo "jq is required" >&2; exit 1; }
+
+latest_report() {
+    ls -dt "$(dirname "$0")"/target/gatling/*/ 2>/dev/null | head -n 1
+}
+
+summarize() {
+    local dir="${1:-$(latest_report)}"
+    local stats="${dir%/}/js/stats.json"
+    [[ -f "$stats" ]] || { echo "No stats.json under ${dir:-target/gatling}" >&2; exit 1; }
+    printf 'request\tcount\tko\trps\tp50\tp75\tp95\tp99\tmax\n'
+    jq -r '
+        def row: [.name, .stats.numberOfRequests.total, .stats.numberOfRequests.ko,
+                  .stats.meanNumberOfRequestsPerSecond.total, .stats.percentiles1.total,
+                  .stats.percentiles2.total, .stats.percentiles3.total, .stats.percentiles4.total,
+                  .stats.maxResponseTime.total] | @tsv;
+        (. | .name = "Global" | row),
+        ([.. | objects | select(.type? == "REQUEST")] | sort_by(.name) | .[] | row)
+    ' "$stats"
+}
+
+as_tsv() {
+    if [[ -d "$1" ]]; then summarize "$1"; else cat "$1"; fi
+}
+
+compare() {
+    join -t $'\t' -a 1 -e '-' -o auto \
+        <(as_tsv "$1" | tail -n +2 | sort -t $'\t' -k1,1) \
+        <(as_tsv "$2" | tail -n +2 | sort -t $'\t' -k1,1) |
+    awk -F '\t' '
+        function delta(a, b) {
+            if (a == "-" || b == "-" || a == 0) return "n/a"
+            return sprintf("%+.1f%%", (b - a) * 100 / a)
+        }
+        BEGIN {
+            printf "%-45s %10s %10s %8s %8s %8s %8s %8s %8s\n",
+                   "request", "rps", "rps new", "delta", "p95", "p95 new", "p99", "p99 new", "delta"
+        }
+        {
+            printf "%-45s %10s %10s %8s %8s %8s %8s %8s %8s\n",
+                   $1, $4, $12, delta($4, $12), $7, $15, $8, $16, delta($8, $16)
+        }'
+}
+
+case "${1:-}" in
+    summarize) shift; summarize "$@" ;;
+    compare)   [[ $# -eq 3 ]] || { echo "usage: $0 compare <baseline> <candidate>" >&2; exit 1; }; compare "$2" "$3" ;;
+    *)         echo "usage: $0 summarize [report-dir] | compare <baseline> <candidate>" >&2; exit 1 ;;
+esac
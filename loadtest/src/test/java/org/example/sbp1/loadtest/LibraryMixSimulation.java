@@ -0,0 +1,140 @@
+package org.example.sbp1.loadtest;
+
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static io.gatling.javaapi.http.HttpDsl.*;
+
+/**
+ * Realistic traffic mix against /api/books, /api/authors and /api/publishers: mostly browsing and
+ * searching, some creates and deletes, and the occasional full-table repricing. The catalog is
+ * seeded through the API first. Meant for capacity runs, so start the stack with rate limiting
+ * off (docker-compose.loadtest.yml); {@link OverloadSimulation} covers the limiter itself.
+ * <p>
+ * Every virtual user takes one record from a feeder backed by its own seeded generator: the Nth
+ * user to arrive always runs the same operation with the same parameters for a given seed.
+ */
+public class LibraryMixSimulation extends Simulation {
+
+    private static final String[] OPERATIONS = {"browse", "browseAll", "search", "lookup", "create", "delete", "bulkUpdate"};
+    private static final double[] WEIGHTS = {30, 5, 25, 20, 12, 7, 1};
+
+    private final SeedData data = new SeedData(LoadTestConfig.SEED, LoadTestConfig.RUN_ID);
+    private final SeedData traffic = data.stream(1);
+    private final Seeder seeder = new Seeder(LoadTestConfig.BASE_URL, data);
+    private final Queue<String> createdIsbns = new ConcurrentLinkedQueue<>();
+
+    private final Iterator<Map<String, Object>> users = Stream.generate(this::nextUser).iterator();
+
+    private synchronized Map<String, Object> nextUser() {
+        Map<String, Object> user = new HashMap<>();
+        String operation = traffic.pick(OPERATIONS, WEIGHTS);
+        user.put("operation", operation);
+        user.put("word", traffic.word());
+        user.put("category", traffic.category());
+        user.put("tag", SeedData.TAGS[traffic.nextInt(SeedData.TAGS.length)]);
+        user.put("authorName", seeder.authorNames.get(traffic.nextInt(seeder.authorNames.size())));
+        user.put("authorId", seeder.authorIds.get(traffic.nextInt(seeder.authorIds.size())));
+        user.put("isbn", seeder.bookIsbns.get(traffic.nextInt(seeder.bookIsbns.size())));
+        user.put("page", traffic.nextInt(5));
+        user.put("minPrice", 5 + traffic.nextInt(40));
+        user.put("maxPrice", 50 + traffic.nextInt(50));
+        if (operation.equals("create")) {
+            Map<String, Object> book = traffic.book(seeder.authorIds, seeder.publisherIds);
+            user.put("newIsbn", book.get("isbn"));
+            user.put("json", SeedData.bookJson(book));
+        }
+        return user;
+    }
+
+    private final HttpProtocolBuilder httpProtocol = http
+            .baseUrl(LoadTestConfig.BASE_URL)
+            .disableWarmUp()
+            .acceptHeader("application/json")
+            .contentTypeHeader("application/json")
+            .userAgentHeader("sbp1-loadtest");
+
+    private final ChainBuilder browse = exec(
+            http("GET /api/books/query").get("/api/books/query")
+                    .queryParam("page", "#{page}").queryParam("size", "20").queryParam("sort", "-price")
+                    .check(status().is(200)),
+            http("GET /api/authors").get("/api/authors").check(status().is(200)),
+            http("GET /api/publishers").get("/api/publishers").check(status().is(200)));
+
+    private final ChainBuilder browseAll = exec(
+            http("GET /api/books").get("/api/books").check(status().is(200)));
+
+    private final ChainBuilder search = exec(
+            http("GET /api/books/search/title").get("/api/books/search/title")
+                    .queryParam("title", "#{word}").check(status().is(200)),
+            http("GET /api/books/search/author").get("/api/books/search/author")
+                    .queryParam("authorName", "#{authorName}").check(status().is(200)),
+            http("GET /api/books/search/category").get("/api/books/search/category")
+                    .queryParam("category", "#{category}").check(status().is(200)),
+            http("GET /api/books/query (filtered)").get("/api/books/query")
+                    .queryParam("category", "#{category}").queryParam("minPrice", "#{minPrice}")
+                    .queryParam("maxPrice", "#{maxPrice}").queryParam("inStock", "true")
+                    .queryParam("tag", "#{tag}").queryParam("sort", "title")
+                    .check(status().is(200)));
+
+    private final ChainBuilder lookup = exec(
+            http("GET /api/books/search/isbn").get("/api/books/search/isbn")
+                    .queryParam("isbn", "#{isbn}").check(status().is(200)),
+            http("GET /api/authors/{id}").get("/api/authors/#{authorId}").check(status().is(200)),
+            http("GET /api/books/inventory").get("/api/books/inventory")
+                    .queryParam("category", "#{category}").check(status().is(200)));
+
+    private final ChainBuilder create = exec(
+            http("POST /api/books/createBook").post("/api/books/createBook")
+                    .body(StringBody("#{json}")).check(status().is(200)))
+            .exec(session -> {
+                if (!session.isFailed()) {
+                    createdIsbns.add(session.getString("newIsbn"));
+                }
+                return session;
+            });
+
+    private final ChainBuilder delete = exec(session -> {
+        String isbn = createdIsbns.poll();
+        return isbn == null ? session : session.set("deleteIsbn", isbn);
+    }).doIf(session -> session.contains("deleteIsbn")).then(
+            exec(http("DELETE /api/books/DeleteBook/{isbn}").delete("/api/books/DeleteBook/#{deleteIsbn}")
+                    .check(status().is(200))));
+
+    private final ChainBuilder bulkUpdate = exec(
+            http("PUT /api/books/updateBook").put("/api/books/updateBook").check(status().is(200)));
+
+    private final ScenarioBuilder mix = scenario("Library mix").feed(users).doSwitch("#{operation}").on(
+            onCase("browse").then(browse),
+            onCase("browseAll").then(browseAll),
+            onCase("search").then(search),
+            onCase("lookup").then(lookup),
+            onCase("create").then(create),
+            onCase("delete").then(delete),
+            onCase("bulkUpdate").then(bulkUpdate));
+
+    {
+        setUp(mix.injectOpen(
+                rampUsersPerSec(1).to(LoadTestConfig.RATE).during(LoadTestConfig.RAMP_SECONDS),
+                constantUsersPerSec(LoadTestConfig.RATE).during(LoadTestConfig.DURATION_SECONDS)))
+                .protocols(httpProtocol)
+                .assertions(
+                        global().responseTime().percentile(99.0).lt(LoadTestConfig.MAX_P99_MILLIS),
+                        global().failedRequests().percent().lt(LoadTestConfig.MAX_FAILED_PERCENT));
+    }
+
+    @Override
+    public void before() {
+        seeder.seed(LoadTestConfig.SEED_AUTHORS, LoadTestConfig.SEED_PUBLISHERS, LoadTestConfig.SEED_BOOKS);
+    }
+}
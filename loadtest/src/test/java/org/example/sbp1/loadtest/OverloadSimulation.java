@@ -0,0 +1,67 @@
+package org.example.sbp1.loadtest;
+
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static io.gatling.javaapi.http.HttpDsl.*;
+
+/**
+ * Drives the expensive endpoints well past the configured rate and concurrency limits (run it with
+ * limits on). Shed requests (429/503) count as OK; the assertions check that they are shed quickly
+ * so p99 stays flat instead of growing with the backlog. The catalog is seeded first, as for
+ * {@link LibraryMixSimulation}, so the admitted requests do real work.
+ */
+public class OverloadSimulation extends Simulation {
+
+    private static final double OVERLOAD_RATE = Double.parseDouble(System.getProperty("overloadRate", "300"));
+
+    private static final String[] OPERATIONS = {"books", "searchTitle", "query"};
+    private static final double[] WEIGHTS = {50, 30, 20};
+
+    private final SeedData data = new SeedData(LoadTestConfig.SEED, LoadTestConfig.RUN_ID);
+    private final SeedData traffic = data.stream(2);
+    private final Seeder seeder = new Seeder(LoadTestConfig.BASE_URL, data);
+
+    private final Iterator<Map<String, Object>> users = Stream.generate(() -> {
+        Map<String, Object> user = new HashMap<>();
+        user.put("operation", traffic.pick(OPERATIONS, WEIGHTS));
+        user.put("word", traffic.word());
+        return user;
+    }).iterator();
+
+    private final HttpProtocolBuilder httpProtocol = http
+            .baseUrl(LoadTestConfig.BASE_URL)
+            .disableWarmUp()
+            .acceptHeader("application/json")
+            .userAgentHeader("sbp1-loadtest");
+
+    private final ScenarioBuilder overload = scenario("Overload").feed(users).doSwitch("#{operation}").on(
+            onCase("books").then(exec(http("GET /api/books").get("/api/books")
+                    .check(status().in(200, 429, 503)))),
+            onCase("searchTitle").then(exec(http("GET /api/books/search/title").get("/api/books/search/title")
+                    .queryParam("title", "#{word}").check(status().in(200, 429, 503)))),
+            onCase("query").then(exec(http("GET /api/books/query").get("/api/books/query")
+                    .queryParam("sort", "-price").check(status().in(200, 429, 503)))));
+
+    {
+        setUp(overload.injectOpen(
+                rampUsersPerSec(1).to(OVERLOAD_RATE).during(LoadTestConfig.RAMP_SECONDS),
+                constantUsersPerSec(OVERLOAD_RATE).during(LoadTestConfig.DURATION_SECONDS)))
+                .protocols(httpProtocol)
+                .assertions(
+                        global().responseTime().percentile(99.0).lt(LoadTestConfig.MAX_P99_MILLIS),
+                        global().successfulRequests().percent().gt(99.0));
+    }
+
+    @Override
+    public void before() {
+        seeder.seed(LoadTestConfig.SEED_AUTHORS, LoadTestConfig.SEED_PUBLISHERS, LoadTestConfig.SEED_BOOKS);
+    }
+}
@@ -0,0 +1,132 @@
+package org.example.sbp1.loadtest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deterministic generator for authors, publishers, tags and books. Names carry the run id so that
+ * repeated runs against the same database never clash, and ISBNs are {@code <runId>-xxx-xxx}.
+ * Each consumer (seeding, every feeder) takes its own {@link #stream(int)} so that the values one
+ * of them draws never depend on how fast the others are consumed.
+ */
+final class SeedData {
+
+    static final String[] CATEGORIES = {
+            "Fiction", "Science", "History", "Poetry", "Children", "Biography", "Fantasy", "Travel"
+    };
+    static final String[] TAGS = {
+            "classic", "bestseller", "award", "new", "illustrated", "paperback", "hardcover", "signed",
+            "series", "translated", "young-adult", "reference"
+    };
+    static final String[] WORDS = {
+            "night", "river", "garden", "shadow", "empire", "winter", "journey", "secret", "light", "stone",
+            "ocean", "forest", "silence", "city", "fire", "letters", "memory", "island", "glass", "storm"
+    };
+
+    private final long seed;
+    private final Random random;
+    private final int runId;
+    private final AtomicInteger nextIsbn;
+
+    SeedData(long seed, int runId) {
+        this(seed, new Random(seed), runId, new AtomicInteger());
+    }
+
+    private SeedData(long seed, Random random, int runId, AtomicInteger nextIsbn) {
+        this.seed = seed;
+        this.random = random;
+        this.runId = runId;
+        this.nextIsbn = nextIsbn;
+    }
+
+    /** Independent generator derived from the seed, sharing this run's ISBN sequence. */
+    SeedData stream(int stream) {
+        return new SeedData(seed, new Random(seed * 1_000_003L + stream), runId, nextIsbn);
+    }
+
+    String authorName(int index) {
+        return String.format(Locale.ROOT, "LT%02d Author %04d", runId, index);
+    }
+
+    String publisherName(int index) {
+        return String.format(Locale.ROOT, "LT%02d Publisher %03d", runId, index);
+    }
+
+    synchronized int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    synchronized String word() {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    synchronized String category() {
+        return CATEGORIES[random.nextInt(CATEGORIES.length)];
+    }
+
+    /** One of {@code names}, drawn with the given relative weights. */
+    synchronized String pick(String[] names, double[] weights) {
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        double r = random.nextDouble() * total;
+        for (int i = 0; i < names.length - 1; i++) {
+            r -= weights[i];
+            if (r < 0) {
+                return names[i];
+            }
+        }
+        return names[names.length - 1];
+    }
+
+    String nextIsbn() {
+        int n = nextIsbn.getAndIncrement();
+        if (n >= 1_000_000) {
+            throw new IllegalStateException("ISBN space of run " + runId + " exhausted");
+        }
+        return String.format(Locale.ROOT, "%02d-%03d-%03d", runId, n / 1000, n % 1000);
+    }
+
+    /** Fields of a CreateBookRequest, with author and publisher picked among the seeded ones. */
+    synchronized Map<String, Object> book(List<Integer> authorIds, List<Integer> publisherIds) {
+        Map<String, Object> book = new HashMap<>();
+        String title = capitalize(WORDS[random.nextInt(WORDS.length)]) + " of the "
+                + capitalize(WORDS[random.nextInt(WORDS.length)]);
+        book.put("title", title);
+        book.put("isbn", nextIsbn());
+        book.put("category", CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        book.put("price", Math.round((5 + random.nextDouble() * 95) * 100) / 100.0);
+        book.put("quantity", random.nextInt(50));
+        book.put("authorId", authorIds.get(random.nextInt(authorIds.size())));
+        book.put("publisherId", publisherIds.get(random.nextInt(publisherIds.size())));
+        List<String> tags = new ArrayList<>();
+        int tagCount = random.nextInt(3);
+        for (int i = 0; i < tagCount; i++) {
+            tags.add(TAGS[random.nextInt(TAGS.length)]);
+        }
+        book.put("tagNames", tags);
+        return book;
+    }
+
+    static String bookJson(Map<String, Object> book) {
+        StringBuilder tags = new StringBuilder();
+        for (Object tag : (List<?>) book.get("tagNames")) {
+            tags.append(tags.length() == 0 ? "" : ",").append('"').append(tag).append('"');
+        }
+        return String.format(Locale.ROOT,
+                "{\"title\":\"%s\",\"isbn\":\"%s\",\"category\":\"%s\",\"price\":%s,\"quantity\":%d,"
+                        + "\"authorId\":%d,\"publisherId\":%d,\"tagNames\":[%s]}",
+                book.get("title"), book.get("isbn"), book.get("category"), book.get("price"),
+                (Integer) book.get("quantity"), (Integer) book.get("authorId"), (Integer) book.get("publisherId"), tags);
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
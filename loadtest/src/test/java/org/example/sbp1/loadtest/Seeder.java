@@ -0,0 +1,123 @@
+package org.example.sbp1.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Populates the target stack through its public API before a simulation starts, so every run
+ * begins from the same generated catalog. Requests shed by the rate limiter are retried.
+ */
+final class Seeder {
+
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    private static final int MAX_ATTEMPTS = 20;
+
+    final List<Integer> authorIds = Collections.synchronizedList(new ArrayList<>());
+    final List<String> authorNames = Collections.synchronizedList(new ArrayList<>());
+    final List<Integer> publisherIds = Collections.synchronizedList(new ArrayList<>());
+    final List<String> bookIsbns = Collections.synchronizedList(new ArrayList<>());
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final String baseUrl;
+    private final SeedData data;
+
+    Seeder(String baseUrl, SeedData data) {
+        this.baseUrl = baseUrl;
+        this.data = data;
+    }
+
+    void seed(int authors, int publishers, int books) {
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < authors; i++) {
+            String name = data.authorName(i);
+            String body = String.format("{\"name\":\"%s\",\"email\":\"author%04d@loadtest.local\"}", name, i);
+            authorIds.add(id(post("/api/authors", body)));
+            authorNames.add(name);
+        }
+        for (int i = 0; i < publishers; i++) {
+            String body = String.format("{\"name\":\"%s\",\"address\":\"%d Load Test Street\"}", data.publisherName(i), i);
+            publisherIds.add(id(post("/api/publishers", body)));
+        }
+
+        // Generate up front so the catalog is identical whatever order the inserts complete in
+        List<Map<String, Object>> generated = new ArrayList<>(books);
+        for (int i = 0; i < books; i++) {
+            generated.add(data.book(authorIds, publisherIds));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> pending = new ArrayList<>();
+            for (Map<String, Object> book : generated) {
+                pending.add(pool.submit(() -> {
+                    post("/api/books/createBook", SeedData.bookJson(book));
+                    bookIsbns.add((String) book.get("isbn"));
+                }));
+            }
+            for (Future<?> future : pending) {
+                future.get();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Seeding books failed", e);
+        } finally {
+            pool.shutdown();
+        }
+        Collections.sort(bookIsbns);
+        System.out.printf("Seeded %d authors, %d publishers, %d books (run %02d) in %d ms%n",
+                authors, publishers, books, LoadTestConfig.RUN_ID, System.currentTimeMillis() - start);
+    }
+
+    private String post(String path, String json) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                int status = response.statusCode();
+                if (status / 100 == 2) {
+                    return response.body();
+                }
+                if ((status == 429 || status == 503) && attempt < MAX_ATTEMPTS) {
+                    long retryAfter = response.headers().firstValueAsLong("Retry-After").orElse(1);
+                    Thread.sleep(Math.max(1, retryAfter) * 1000);
+                    continue;
+                }
+                if (status == 409) {
+                    throw new IllegalStateException("POST " + path + " returned 409: ISBN prefix "
+                            + String.format("%02d", LoadTestConfig.RUN_ID)
+                            + " is already used in this database; reset it or pass another -DrunId");
+                }
+                throw new IllegalStateException("POST " + path + " returned " + status + ": " + response.body());
+            } catch (IOException e) {
+                throw new IllegalStateException("POST " + path + " failed; is the stack up at " + baseUrl + "?", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while seeding", e);
+            }
+        }
+    }
+
+    private static int id(String json) {
+        Matcher matcher = ID.matcher(json);
+        if (!matcher.find()) {
+            throw new IllegalStateException("No id in response: " + json);
+        }
+        return Integer.parseInt(matcher.group(1));
+    }
+}